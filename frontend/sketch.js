@@ -74,17 +74,17 @@ function draw() {
 }
 
 function getBricks() {
-  fetch(currentBondUrl)
+  fetch(currentBondUrl, { headers: { Accept: wallPlanMediaType } })
     .then(response => {
       if (!response.ok) {
         console.error("Not OK");
         throw new Error(`HTTP error! status: ${response.status}`);
       }
-      return response.json();
+      return response.arrayBuffer();
     })
-    .then(data => {
-      // Convert JSON bricks into Brick objects
-      bricks = data.bricks.map(brick => new Brick(brick.x, brick.y, brick.width, brick.height, brick.strideIndex));
+    .then(buffer => {
+      // Convert decoded bricks into Brick objects
+      bricks = decodeWallPlan(buffer).bricks.map(brick => new Brick(brick.x, brick.y, brick.width, brick.height, brick.strideIndex));
     })
     .catch(error => {
       console.error('Error fetching /stretcher-bond:', error);
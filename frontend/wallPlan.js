@@ -0,0 +1,64 @@
+// Decoder for the binary plan format, requested with the Accept header below (see WallPlanCodec.java for the layout)
+const wallPlanMediaType = 'application/vnd.wallbuilder.plan';
+
+function decodeWallPlan(buffer) {
+  const bytes = new Uint8Array(buffer);
+  if (bytes.length < 4 || String.fromCharCode(...bytes.subarray(0, 4)) !== 'WPL1') {
+    throw new Error('Not an encoded wall plan');
+  }
+  let position = 4;
+
+  function varint() {
+    let value = 0;
+    for (let shift = 0; shift < 35; shift += 7) {
+      if (position >= bytes.length) {
+        throw new Error('Truncated wall plan');
+      }
+      const b = bytes[position++];
+      value |= (b & 0x7f) << shift;
+      if (b < 0x80) {
+        return value >>> 0;
+      }
+    }
+    throw new Error('Malformed varint in wall plan');
+  }
+
+  function zigzag() {
+    const value = varint();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  const unitsPerMm = varint();
+  if (unitsPerMm <= 0) {
+    throw new Error('Malformed units per millimetre in wall plan');
+  }
+  // Sizes are checked against the bytes left before the bricks are read, as in WallPlanCodec.decode, since every stride
+  // size takes at least one byte and every brick at least four
+  const strideCount = varint();
+  if (strideCount > bytes.length - position) {
+    throw new Error('Malformed stride count in wall plan');
+  }
+  const strideSizes = [];
+  let brickCount = 0;
+  while (strideSizes.length < strideCount) {
+    const strideSize = varint();
+    strideSizes.push(strideSize);
+    brickCount += strideSize;
+  }
+  if (brickCount > (bytes.length - position) / 4) {
+    throw new Error('Truncated wall plan');
+  }
+
+  const bricks = [];
+  let x = 0, y = 0, width = 0, height = 0;
+  strideSizes.forEach((strideSize, strideIndex) => {
+    for (let i = 0; i < strideSize; i++) {
+      x += zigzag();
+      y += zigzag();
+      width += zigzag();
+      height += zigzag();
+      bricks.push({ x: x / unitsPerMm, y: y / unitsPerMm, width: width / unitsPerMm, height: height / unitsPerMm, strideIndex });
+    }
+  });
+  return { bricks };
+}
@@ -0,0 +1,103 @@
+package com.monumentaltakehome.wallbuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Compares a JMH JSON result with a stored baseline, run by the benchmarks profile after the benchmarks.
+// Usage: BenchmarkComparison <result.json> <baseline.json> <threshold percent> <baseline required>
+// A benchmark has regressed when its score or allocation per operation is worse by more than the threshold and by more
+// than the two runs' error margins together, and any regression fails the build. A missing baseline fails it too, unless
+// the baseline is not required, as nothing would be checked.
+public class BenchmarkComparison {
+
+    private static final String ALLOCATION_METRIC = "·gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        Path result = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        boolean baselineRequired = Boolean.parseBoolean(args[3]);
+        if (!Files.exists(baseline)) {
+            System.out.printf("%s: no baseline at %s, so no benchmark was checked for regressions.%n", baselineRequired ? "ERROR" : "WARNING", baseline);
+            System.out.printf("Keep this run as the baseline with: cp %s %s%n", result, baseline);
+            if (baselineRequired) {
+                System.out.println("Or run without the check with -Djmh.baselineRequired=false");
+                System.exit(1);
+            }
+            return;
+        }
+
+        Map<String, JsonNode> baselineRuns = runs(baseline);
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> run : runs(result).entrySet()) {
+            JsonNode baselineRun = baselineRuns.get(run.getKey());
+            if (baselineRun == null) {
+                System.out.printf("%-100s new%n", run.getKey());
+                continue;
+            }
+            boolean higherIsBetter = "thrpt".equals(run.getValue().path("mode").asText());
+            JsonNode score = run.getValue().path("primaryMetric");
+            JsonNode baselineScore = baselineRun.path("primaryMetric");
+            JsonNode allocation = run.getValue().path("secondaryMetrics").path(ALLOCATION_METRIC);
+            JsonNode baselineAllocation = baselineRun.path("secondaryMetrics").path(ALLOCATION_METRIC);
+
+            double scoreChange = worsening(baselineScore, score, higherIsBetter);
+            double allocationChange = allocation.isMissingNode() || baselineAllocation.isMissingNode() ? 0 : worsening(baselineAllocation, allocation, false);
+            boolean regressed = isRegression(baselineScore, score, scoreChange, threshold)
+                || isRegression(baselineAllocation, allocation, allocationChange, threshold);
+            System.out.printf("%-100s %12.4f -> %12.4f %-10s %+7.1f%%  allocation %+7.1f%%%s%n", run.getKey(),
+                baselineScore.path("score").asDouble(), score.path("score").asDouble(), score.path("scoreUnit").asText(),
+                0 - scoreChange, 0 - allocationChange, regressed ? "  REGRESSED" : "");
+            if (regressed) {
+                regressions.add(run.getKey());
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.out.printf("%s benchmarks regressed by more than %s%% against %s%n", regressions.size(), threshold, baseline);
+            System.exit(1);
+        }
+    }
+
+    // Runs keyed by benchmark, mode and parameters
+    private static Map<String, JsonNode> runs(Path path) throws IOException {
+        Map<String, JsonNode> runs = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(path.toFile())) {
+            Map<String, String> params = new TreeMap<>();
+            run.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            runs.put(String.format("%s %s %s", run.path("benchmark").asText(), run.path("mode").asText(), params), run);
+        }
+        return runs;
+    }
+
+    // Percentage by which a metric got worse, negative when it improved
+    private static double worsening(JsonNode baseline, JsonNode current, boolean higherIsBetter) {
+        double before = baseline.path("score").asDouble();
+        double after = current.path("score").asDouble();
+        if (before == 0) {
+            return 0;
+        }
+        return (higherIsBetter ? before - after : after - before) / before * 100;
+    }
+
+    private static boolean isRegression(JsonNode baseline, JsonNode current, double change, double threshold) {
+        double difference = Math.abs(current.path("score").asDouble() - baseline.path("score").asDouble());
+        double error = errorMargin(current) + errorMargin(baseline);
+        return change > threshold && difference > error;
+    }
+
+    // JMH reports NaN when there were too few iterations to estimate an error
+    private static double errorMargin(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
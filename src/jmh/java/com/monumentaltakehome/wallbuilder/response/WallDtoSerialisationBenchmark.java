@@ -0,0 +1,57 @@
+package com.monumentaltakehome.wallbuilder.response;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.service.StretcherBondService;
+import com.monumentaltakehome.wallbuilder.service.WallService;
+
+// Writing a planned wall as JSON, and in the binary format for comparison
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WallDtoSerialisationBenchmark {
+
+    @Param({"2300", "20000"})
+    public double wallLength;
+
+    @Param({"2000", "6000"})
+    public double wallHeight;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private WallDto wall;
+
+    @Setup
+    public void setUp() {
+        wall = new StretcherBondService().generateWall(
+            new WallGeometry(wallLength, wallHeight, WallService.BUILD_ENV_WIDTH, WallService.BUILD_ENV_HEIGHT));
+    }
+
+    @Benchmark
+    public byte[] json() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(wall);
+    }
+
+    @Benchmark
+    public byte[] binary() {
+        return WallPlanCodec.encode(wall);
+    }
+}
@@ -0,0 +1,61 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.response.WallDto;
+
+// Whole plans, from laying out the bond to the stride DTOs
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BondBenchmark {
+
+    @Param({"STRETCHER", "FLEMISH", "WILD"})
+    public BondType bondType;
+
+    @Param({"2300", "20000"})
+    public double wallLength;
+
+    @Param({"2000", "6000"})
+    public double wallHeight;
+
+    private WallService wallService;
+    private WallGeometry geometry;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        wallService = switch (bondType) {
+            case STRETCHER -> new StretcherBondService();
+            case FLEMISH -> new FlemishBondService();
+            case WILD -> new WildBondService();
+        };
+        geometry = new WallGeometry(wallLength, wallHeight, WallService.BUILD_ENV_WIDTH, WallService.BUILD_ENV_HEIGHT);
+    }
+
+    // Wild bonds are seeded so that every run measures the same sequence of walls
+    @Benchmark
+    public WallDto generateWall() {
+        if (wallService instanceof WildBondService wildBondService) {
+            return wildBondService.generateWall(geometry, seed++);
+        }
+        return wallService.generateWall(geometry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.EnvelopeCoverageIndex;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
+// The candidate search and a single stride on an unplanned stretcher wall, searched serially over the whole wall width
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlannerBenchmark {
+
+    @Param({"2300", "20000"})
+    public double wallLength;
+
+    @Param({"2000", "6000"})
+    public double wallHeight;
+
+    private BrickDependencyGraph graph;
+    private EnvelopeCoverageIndex coverageIndex;
+    private EnvelopeCandidates candidates;
+
+    @Setup
+    public void setUp() {
+        StretcherBondService wallService = new StretcherBondService();
+        WallGeometry geometry = new WallGeometry(wallLength, wallHeight, WallService.BUILD_ENV_WIDTH, WallService.BUILD_ENV_HEIGHT);
+        WallLayout layout = wallService.getWallLayout(geometry);
+        graph = new BrickDependencyGraph(layout, WallService.onlyPlaceAfterLeftNeigbour);
+        coverageIndex = new EnvelopeCoverageIndex(layout, WallService.BUILD_ENV_WIDTH_UNITS, WallService.BUILD_ENV_HEIGHT_UNITS);
+        // Same event point candidates as the planner, over the whole wall width
+        candidates = new EnvelopeCandidates(WallService.BUILD_ENV_WIDTH_UNITS, WallService.BUILD_ENV_HEIGHT_UNITS, 0,
+            WallLayout.toUnits(wallService.wallWidth(geometry)) - WallService.BUILD_ENV_WIDTH_UNITS);
+    }
+
+    // Includes generating the candidates, as every stride does
+    @Benchmark
+    public int findOptimumBuildEnvX() {
+        return EnvelopeCandidateSearch.findOptimumBuildEnvX(candidates.xs(graph, 0), 0, graph, coverageIndex, 1);
+    }
+
+    // Search and place the first stride, then roll back so every invocation starts from the same state
+    @Benchmark
+    public int nextStride() {
+        int checkpoint = graph.checkpoint();
+        int buildEnvX = EnvelopeCandidateSearch.findOptimumBuildEnvX(candidates.xs(graph, 0), 0, graph, coverageIndex, 1);
+        int placed = graph.placeAllWithin(coverageIndex.coverage(buildEnvX, 0));
+        graph.rollback(checkpoint);
+        return placed;
+    }
+}
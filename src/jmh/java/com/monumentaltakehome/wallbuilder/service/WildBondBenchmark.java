@@ -0,0 +1,49 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
+// The wild bond generator on its own, without planning the wall
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WildBondBenchmark {
+
+    @Param({"2300", "20000"})
+    public double wallLength;
+
+    @Param({"2000", "6000"})
+    public double wallHeight;
+
+    private WildBondService wildBondService = new WildBondService();
+    private WallGeometry geometry;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        geometry = new WallGeometry(wallLength, wallHeight, WallService.BUILD_ENV_WIDTH, WallService.BUILD_ENV_HEIGHT);
+    }
+
+    @Benchmark
+    public WallLayout generateWildBond() {
+        return wildBondService.getWallLayout(geometry, new Random(seed++));
+    }
+}
@@ -0,0 +1,436 @@
+package com.monumentaltakehome.wallbuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// End to end load test of the bond endpoints, run by the load-test profile.
+// Starts the application in a JVM of its own on a free port, with an empty plan store, and drives the three bond
+// endpoints from a fixed number of virtual threads. Each thread sends its next request as soon as the last one is
+// answered, or on a fixed schedule when a rate is set, picking the endpoint by the weights of the request mix and the
+// wall from a fixed set of lengths, and of seeds for the wild bond, so the share of requests the plan cache and store
+// can serve depends on how many walls there are. Latencies of requests started after the warm up are recorded in
+// HdrHistograms per endpoint.
+// A thread waiting on a slow response sends nothing meanwhile, so without a rate the latencies leave out the time
+// requests would have queued for, which is coordinated omission. On a schedule a request's latency is measured from
+// when it was due to be sent, so a slow response also counts against the requests held up behind it. The report says
+// which of the two its latencies are.
+// Heap and GC statistics come from the application's own actuator metrics, so they exclude the load generator.
+// The report is written as JSON with an .hgrm percentile distribution per endpoint beside it, and compared with a
+// baseline report. The run fails when throughput or p99 latency is worse than the baseline by more than the threshold,
+// and when there is no baseline unless one is not required, as nothing would be checked.
+public class LoadTest {
+
+    private static final String APPLICATION = "com.monumentaltakehome.wallbuilder.WallbuilderApplication";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(90);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    private static final String TOTAL = "total";
+    // Walls are this long plus 10 mm for each wall number, so every bond can lay all of them
+    private static final int SHORTEST_WALL = 3000;
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        Files.createDirectories(settings.report().toAbsolutePath().getParent());
+        int port = freePort();
+        // Every run starts with an empty plan store, which is removed once the application has stopped
+        Path planStore = Files.createTempDirectory(settings.report().toAbsolutePath().getParent(), "load-test-plans");
+        Process application = startApplication(settings, port, planStore);
+        Runtime.getRuntime().addShutdownHook(new Thread(application::destroy));
+
+        boolean regressed;
+        try {
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            URI base = URI.create("http://localhost:" + port);
+            awaitStartup(client, base, application);
+            System.out.printf("Load testing %s with %s threads%s, %s s warm up and %s s measurement, mix %s over %s walls%n",
+                base, settings.concurrency(), settings.rate() > 0 ? String.format(" at %s requests/s", settings.rate()) : "",
+                settings.warmup().toSeconds(), settings.duration().toSeconds(), settings.mix(), settings.walls());
+            Map<String, Object> report = run(client, base, settings);
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(settings.report().toFile(), report);
+            System.out.printf("Report written to %s%n", settings.report());
+            regressed = compareWithBaseline(settings);
+        } finally {
+            application.destroy();
+            application.waitFor(30, TimeUnit.SECONDS);
+            try (Stream<Path> files = Files.list(planStore)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(planStore);
+        }
+        if (regressed) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Object> run(HttpClient client, URI base, Settings settings) throws Exception {
+        List<Endpoint> endpoints = settings.endpoints();
+        long measurementStart = System.nanoTime() + settings.warmup().toNanos();
+        long measurementEnd = measurementStart + settings.duration().toNanos();
+
+        // Each thread records into its own histograms, which are merged once every thread is done
+        List<Histogram[]> threadHistograms = new ArrayList<>();
+        List<long[]> threadErrors = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < settings.concurrency(); t++) {
+            Histogram[] histograms = new Histogram[endpoints.size()];
+            Arrays.setAll(histograms, i -> new Histogram(3));
+            long[] errors = new long[endpoints.size()];
+            threadHistograms.add(histograms);
+            threadErrors.add(errors);
+            Random random = new Random(t);
+            // Threads on a schedule are spread evenly over the interval between requests
+            long firstRequest = System.nanoTime() + settings.intervalNanos() * t / settings.concurrency();
+            threads.add(Thread.ofVirtual().name("load-" + t).start(() -> {
+                for (long due = firstRequest; System.nanoTime() < measurementEnd; due += settings.intervalNanos()) {
+                    int endpoint = pick(endpoints, random);
+                    HttpRequest request = HttpRequest.newBuilder(endpoints.get(endpoint).uri(base, random.nextInt(settings.walls())))
+                        .timeout(REQUEST_TIMEOUT).GET().build();
+                    long start;
+                    if (settings.rate() > 0) {
+                        try {
+                            Thread.sleep(Duration.ofNanos(Math.max(0, due - System.nanoTime())));
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        start = due;
+                    } else {
+                        start = System.nanoTime();
+                    }
+                    boolean succeeded;
+                    try {
+                        succeeded = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                    } catch (IOException e) {
+                        succeeded = false;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (start < measurementStart) {
+                        continue;
+                    }
+                    if (succeeded) {
+                        histograms[endpoint].recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    } else {
+                        errors[endpoint]++;
+                    }
+                }
+            }));
+        }
+
+        while (System.nanoTime() < measurementStart) {
+            Thread.sleep(100);
+        }
+        HeapSampler heapSampler = new HeapSampler(client, base);
+        Thread sampler = Thread.ofVirtual().start(heapSampler);
+        double[] gcBefore = gcPauses(client, base);
+        double allocatedBefore = metric(client, base, "jvm.gc.memory.allocated", null, "COUNT");
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double[] gcAfter = gcPauses(client, base);
+        double allocatedAfter = metric(client, base, "jvm.gc.memory.allocated", null, "COUNT");
+        sampler.interrupt();
+        sampler.join();
+
+        Map<String, Object> latencies = new LinkedHashMap<>();
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        double seconds = settings.duration().toNanos() / 1e9;
+        for (int i = 0; i < endpoints.size(); i++) {
+            Histogram histogram = new Histogram(3);
+            long errors = 0;
+            for (int t = 0; t < settings.concurrency(); t++) {
+                histogram.add(threadHistograms.get(t)[i]);
+                errors += threadErrors.get(t)[i];
+            }
+            total.add(histogram);
+            totalErrors += errors;
+            latencies.put(endpoints.get(i).name(), summary(histogram, errors, seconds));
+            writeDistribution(settings, endpoints.get(i).name(), histogram);
+        }
+        latencies.put(TOTAL, summary(total, totalErrors, seconds));
+        writeDistribution(settings, TOTAL, total);
+
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("gcPauses", (long) (gcAfter[0] - gcBefore[0]));
+        jvm.put("gcPauseMillis", (gcAfter[1] - gcBefore[1]) * 1000);
+        jvm.put("allocatedMegabytesPerSecond", (allocatedAfter - allocatedBefore) / BYTES_PER_MEGABYTE / seconds);
+        jvm.put("peakHeapUsedMegabytes", heapSampler.peak() / BYTES_PER_MEGABYTE);
+        jvm.put("maximumHeapMegabytes", metric(client, base, "jvm.memory.max", "area:heap", "VALUE") / BYTES_PER_MEGABYTE);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings.describe());
+        report.put("latencies", settings.rate() > 0
+            ? "Measured from when each request was due on its schedule, corrected for coordinated omission"
+            : "Measured from when each request was sent, not corrected for coordinated omission, as each thread waits for its response first");
+        report.put("endpoints", latencies);
+        report.put("jvm", jvm);
+        printSummary(latencies, jvm);
+        System.out.printf("Latencies: %s%n", report.get("latencies"));
+        return report;
+    }
+
+    // Latencies in milliseconds
+    private static Map<String, Object> summary(Histogram histogram, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughput", histogram.getTotalCount() / seconds);
+        summary.put("mean", histogram.getMean() / 1000);
+        summary.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+        summary.put("p90", histogram.getValueAtPercentile(90) / 1000.0);
+        summary.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+        summary.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+        summary.put("max", histogram.getMaxValue() / 1000.0);
+        return summary;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printSummary(Map<String, Object> latencies, Map<String, Object> jvm) {
+        System.out.printf("%-16s %9s %7s %10s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "mean ms");
+        latencies.forEach((name, value) -> {
+            Map<String, Object> summary = (Map<String, Object>) value;
+            System.out.printf("%-16s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, summary.get("requests"), summary.get("errors"),
+                summary.get("throughput"), summary.get("p50"), summary.get("p99"), summary.get("p999"), summary.get("max"), summary.get("mean"));
+        });
+        System.out.printf("GC pauses %s taking %.1f ms, allocation %.1f MB/s, peak heap %.1f of %.1f MB%n", jvm.get("gcPauses"),
+            jvm.get("gcPauseMillis"), jvm.get("allocatedMegabytesPerSecond"), jvm.get("peakHeapUsedMegabytes"), jvm.get("maximumHeapMegabytes"));
+    }
+
+    // Percentile distribution in milliseconds, in the format the HdrHistogram plotter reads
+    private static void writeDistribution(Settings settings, String name, Histogram histogram) throws IOException {
+        String reportName = settings.report().getFileName().toString().replaceFirst("\\.json$", "");
+        Path file = settings.report().resolveSibling(String.format("%s-%s.hgrm", reportName, name));
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            if (histogram.getTotalCount() > 0) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    // A run has regressed when its total throughput or p99 latency is worse than the baseline's by more than the threshold
+    private static boolean compareWithBaseline(Settings settings) throws IOException {
+        if (!Files.exists(settings.baseline())) {
+            System.out.printf("%s: no baseline at %s, so the run was not checked for regressions.%n", settings.baselineRequired() ? "ERROR" : "WARNING",
+                settings.baseline());
+            System.out.printf("Keep this run as the baseline with: cp %s %s%n", settings.report(), settings.baseline());
+            if (settings.baselineRequired()) {
+                System.out.println("Or run without the check with -Dloadtest.baselineRequired=false");
+            }
+            return settings.baselineRequired();
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode resultReport = objectMapper.readTree(settings.report().toFile());
+        JsonNode baselineReport = objectMapper.readTree(settings.baseline().toFile());
+        if (!resultReport.path("settings").equals(baselineReport.path("settings"))) {
+            System.out.printf("Settings differ from the baseline's, which are %s%n", baselineReport.path("settings"));
+        }
+        JsonNode result = resultReport.path("endpoints").path(TOTAL);
+        JsonNode baseline = baselineReport.path("endpoints").path(TOTAL);
+        double throughputChange = worsening(baseline.path("throughput").asDouble(), result.path("throughput").asDouble(), true);
+        double p99Change = worsening(baseline.path("p99").asDouble(), result.path("p99").asDouble(), false);
+        boolean regressed = throughputChange > settings.threshold() || p99Change > settings.threshold();
+        System.out.printf("Against %s: throughput %+.1f%%, p99 latency %+.1f%%%s%n", settings.baseline(), 0 - throughputChange, p99Change,
+            regressed ? String.format("  REGRESSED by more than %s%%", settings.threshold()) : "");
+        return regressed;
+    }
+
+    // Percentage by which a metric got worse, negative when it improved
+    private static double worsening(double before, double after, boolean higherIsBetter) {
+        if (before == 0) {
+            return 0;
+        }
+        return (higherIsBetter ? before - after : after - before) / before * 100;
+    }
+
+    private static Process startApplication(Settings settings, int port, Path planStore) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of(settings.jvmArgs().trim().split("\\s+")));
+        command.addAll(List.of("-classpath", System.getProperty("java.class.path"), APPLICATION, "--server.port=" + port,
+            "--wallbuilder.plan-store.directory=" + planStore));
+        command.removeIf(String::isEmpty);
+        Path log = settings.report().resolveSibling("load-test-application.log");
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+    }
+
+    private static void awaitStartup(HttpClient client, URI base, Process application) throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!application.isAlive()) {
+                throw new IllegalStateException(String.format("Application exited with %s while starting", application.exitValue()));
+            }
+            try {
+                HttpRequest request = HttpRequest.newBuilder(base.resolve("/actuator/health")).timeout(Duration.ofSeconds(5)).build();
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException(String.format("Application did not start within %s s", STARTUP_TIMEOUT.toSeconds()));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static int pick(List<Endpoint> endpoints, Random random) {
+        int weight = random.nextInt(endpoints.stream().mapToInt(Endpoint::weight).sum());
+        for (int i = 0; ; i++) {
+            weight -= endpoints.get(i).weight();
+            if (weight < 0) {
+                return i;
+            }
+        }
+    }
+
+    // Number and total seconds of GC pauses so far, which are only reported once the first pause has happened
+    private static double[] gcPauses(HttpClient client, URI base) {
+        return new double[] {metric(client, base, "jvm.gc.pause", null, "COUNT"), metric(client, base, "jvm.gc.pause", null, "TOTAL_TIME")};
+    }
+
+    // A statistic of an actuator metric, or zero if the metric has not been recorded
+    private static double metric(HttpClient client, URI base, String name, String tag, String statistic) {
+        String query = tag != null ? "?tag=" + tag : "";
+        try {
+            HttpRequest request = HttpRequest.newBuilder(base.resolve("/actuator/metrics/" + name + query)).timeout(Duration.ofSeconds(5)).build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return 0;
+            }
+            for (JsonNode measurement : new ObjectMapper().readTree(response.body()).path("measurements")) {
+                if (statistic.equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+            return 0;
+        } catch (IOException e) {
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    // Samples the application's used heap every 100 ms until interrupted
+    private static class HeapSampler implements Runnable {
+
+        private final HttpClient client;
+        private final URI base;
+        private final AtomicLong peak = new AtomicLong();
+
+        HeapSampler(HttpClient client, URI base) {
+            this.client = client;
+            this.base = base;
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet((long) metric(client, base, "jvm.memory.used", "area:heap", "VALUE"), Math::max);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        long peak() {
+            return peak.get();
+        }
+    }
+
+    private record Endpoint(String name, int weight) {
+
+        // Wild bonds are seeded with the wall number, so every wall is a plan of its own
+        URI uri(URI base, int wall) {
+            String query = "?length=" + (SHORTEST_WALL + 10 * wall) + (name.equals("wild-bond") ? "&seed=" + wall : "");
+            return base.resolve("/" + name + query);
+        }
+    }
+
+    // Set with the loadtest.* system properties, see the load-test profile
+    private record Settings(int concurrency, double rate, Duration warmup, Duration duration, String mix, int walls, String jvmArgs, Path report,
+            Path baseline, double threshold, boolean baselineRequired) {
+
+        static Settings fromSystemProperties() {
+            return new Settings(Integer.getInteger("loadtest.concurrency", 16),
+                Double.parseDouble(System.getProperty("loadtest.rate", "0")),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup", 10)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration", 30)),
+                System.getProperty("loadtest.mix", "stretcher-bond=1,flemish-bond=1,wild-bond=2"),
+                Integer.getInteger("loadtest.walls", 500),
+                System.getProperty("loadtest.jvmArgs", ""),
+                Path.of(System.getProperty("loadtest.report", "target/load-test/load-test-report.json")),
+                Path.of(System.getProperty("loadtest.baseline", "benchmarks/load-test-baseline.json")),
+                Double.parseDouble(System.getProperty("loadtest.threshold", "10")),
+                Boolean.parseBoolean(System.getProperty("loadtest.baselineRequired", "true")));
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("concurrency", concurrency);
+            settings.put("rate", rate);
+            settings.put("warmupSeconds", warmup.toSeconds());
+            settings.put("durationSeconds", duration.toSeconds());
+            settings.put("mix", mix);
+            settings.put("walls", walls);
+            settings.put("jvmArgs", jvmArgs);
+            settings.put("processors", Runtime.getRuntime().availableProcessors());
+            return settings;
+        }
+
+        // Time between the requests of each thread on a schedule
+        long intervalNanos() {
+            return rate > 0 ? (long) (concurrency * 1e9 / rate) : 0;
+        }
+
+        // Mix of endpoint=weight pairs, e.g. stretcher-bond=1,wild-bond=2
+        List<Endpoint> endpoints() {
+            List<Endpoint> endpoints = new ArrayList<>();
+            for (String entry : mix.split(",")) {
+                String[] parts = entry.trim().split("=");
+                if (parts.length != 2 || !List.of("stretcher-bond", "flemish-bond", "wild-bond").contains(parts[0]) || Integer.parseInt(parts[1]) < 0) {
+                    throw new IllegalArgumentException(String.format("Invalid request mix entry: %s", entry));
+                }
+                if (Integer.parseInt(parts[1]) > 0) {
+                    endpoints.add(new Endpoint(parts[0], Integer.parseInt(parts[1])));
+                }
+            }
+            if (endpoints.isEmpty()) {
+                throw new IllegalArgumentException("The request mix needs at least one endpoint with a weight");
+            }
+            return endpoints;
+        }
+    }
+}
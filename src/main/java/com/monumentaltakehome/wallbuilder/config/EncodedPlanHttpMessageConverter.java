@@ -0,0 +1,45 @@
+package com.monumentaltakehome.wallbuilder.config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+// Writes plans that are already in the binary format of WallPlanCodec, such as the views of the PlanStore's mapped segments, as they are
+public class EncodedPlanHttpMessageConverter extends AbstractHttpMessageConverter<ByteBuffer> {
+
+    public EncodedPlanHttpMessageConverter() {
+        super(WallPlanHttpMessageConverter.WALL_PLAN);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ByteBuffer.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ByteBuffer readInternal(Class<? extends ByteBuffer> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Encoded plans are only written", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(ByteBuffer plan, MediaType contentType) {
+        return (long) plan.remaining();
+    }
+
+    // Writes a duplicate, so the buffer can be written again
+    @Override
+    protected void writeInternal(ByteBuffer plan, HttpOutputMessage outputMessage) throws IOException {
+        Channels.newChannel(outputMessage.getBody()).write(plan.duplicate());
+    }
+}
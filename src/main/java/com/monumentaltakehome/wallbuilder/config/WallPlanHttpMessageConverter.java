@@ -0,0 +1,43 @@
+package com.monumentaltakehome.wallbuilder.config;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.monumentaltakehome.wallbuilder.response.WallDto;
+import com.monumentaltakehome.wallbuilder.response.WallPlanCodec;
+
+// Reads and writes plans in the binary format of WallPlanCodec
+public class WallPlanHttpMessageConverter extends AbstractHttpMessageConverter<WallDto> {
+
+    public static final MediaType WALL_PLAN = MediaType.parseMediaType(WallPlanCodec.MEDIA_TYPE);
+
+    public WallPlanHttpMessageConverter() {
+        super(WALL_PLAN);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return WallDto.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected WallDto readInternal(Class<? extends WallDto> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return WallPlanCodec.decode(inputMessage.getBody().readAllBytes());
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(WallDto wall, HttpOutputMessage outputMessage) throws IOException {
+        byte[] bytes = WallPlanCodec.encode(wall);
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+}
@@ -0,0 +1,18 @@
+package com.monumentaltakehome.wallbuilder.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // Added after the default converters, so JSON stays the default and the binary format is only sent when asked for
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new WallPlanHttpMessageConverter());
+        converters.add(new EncodedPlanHttpMessageConverter());
+    }
+}
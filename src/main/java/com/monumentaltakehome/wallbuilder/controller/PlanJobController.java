@@ -0,0 +1,121 @@
+package com.monumentaltakehome.wallbuilder.controller;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.monumentaltakehome.wallbuilder.request.BatchRequest;
+import com.monumentaltakehome.wallbuilder.response.PlanJobDto;
+import com.monumentaltakehome.wallbuilder.service.PlanJob;
+import com.monumentaltakehome.wallbuilder.service.PlanKey;
+import com.monumentaltakehome.wallbuilder.service.PlanScheduler;
+import com.monumentaltakehome.wallbuilder.service.PlanScheduler.PlanSchedulerStats;
+import com.monumentaltakehome.wallbuilder.service.PlanService;
+
+// Batch planning: walls are queued as jobs on the PlanScheduler and their plans collected by job id
+@RestController
+@CrossOrigin(origins = "http://127.0.0.1:5500")
+public class PlanJobController {
+
+    public static final Duration MAXIMUM_WAIT = Duration.ofSeconds(60);
+    public static final Duration RETRY_AFTER = Duration.ofSeconds(5);
+
+    @Autowired
+    private PlanService planService;
+
+    @Autowired
+    private PlanScheduler planScheduler;
+
+    @PostMapping("/plan-jobs")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public List<PlanJobDto> submitBatch(@RequestBody BatchRequest request) {
+        if (request.walls() == null) {
+            throw new IllegalArgumentException("A batch needs at least one wall");
+        }
+        // Every wall is checked before any is queued, so a bad wall rejects the whole batch
+        List<PlanKey> keys = request.walls().stream().map(wall -> {
+            if (wall.bondType() == null) {
+                throw new IllegalArgumentException("Every wall in a batch needs a bond type");
+            }
+            return planService.planKey(wall.bondType(), wall.toWallRequest());
+        }).toList();
+        return planScheduler.submit(keys).stream().map(PlanJobDto::of).toList();
+    }
+
+    @GetMapping("/plan-jobs/{id}")
+    public PlanJobDto getJob(@PathVariable String id) {
+        return PlanJobDto.of(job(id));
+    }
+
+    // Waits up to the given number of seconds for the plan. Request threads are virtual, so waiting clients hold no platform thread.
+    // Answers 202 while the job is still queued or running and 409 with the error once it has failed.
+    // A finished job's plan is in the store, so it is served from the cache or the store and never planned again.
+    @GetMapping("/plan-jobs/{id}/plan")
+    public ResponseEntity<?> getJobPlan(@PathVariable String id, @RequestParam(defaultValue = "0") long wait) {
+        PlanJob job = job(id);
+        long waitSeconds = Math.clamp(wait, 0, MAXIMUM_WAIT.toSeconds());
+        if (waitSeconds > 0) {
+            try {
+                job.done().get(waitSeconds, TimeUnit.SECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                // Answered from the job's status below
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (job.status() == PlanJob.Status.DONE) {
+            return ResponseEntity.ok(planService.getPlan(job.key()));
+        }
+        if (job.status() == PlanJob.Status.FAILED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job.error());
+        }
+        return ResponseEntity.accepted().header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER.toSeconds())).build();
+    }
+
+    @GetMapping("/plan-scheduler")
+    public PlanSchedulerStats getPlanSchedulerStats() {
+        return planScheduler.stats();
+    }
+
+    private PlanJob job(String id) {
+        return planScheduler.job(id).orElseThrow(() -> new NoSuchElementException(String.format("Unknown plan job: %s", id)));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleInvalidRequest(IllegalArgumentException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public String handleUnknownJob(NoSuchElementException e) {
+        return e.getMessage();
+    }
+
+    // Backpressure: the client should retry once the queue has drained
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleFullQueue(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER.toSeconds()))
+            .body(e.getMessage());
+    }
+}
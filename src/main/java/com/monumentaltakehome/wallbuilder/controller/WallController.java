@@ -1,41 +1,206 @@
 package com.monumentaltakehome.wallbuilder.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.BuildTimings;
+import com.monumentaltakehome.wallbuilder.request.ReplanRequest;
+import com.monumentaltakehome.wallbuilder.request.SimulationRequest;
+import com.monumentaltakehome.wallbuilder.request.WallRequest;
 import com.monumentaltakehome.wallbuilder.response.WallDto;
-import com.monumentaltakehome.wallbuilder.service.FlemishBondService;
-import com.monumentaltakehome.wallbuilder.service.StretcherBondService;
-import com.monumentaltakehome.wallbuilder.service.WildBondService;
+import com.monumentaltakehome.wallbuilder.response.WallPlanCodec;
+import com.monumentaltakehome.wallbuilder.response.ZonePlanDto;
+import com.monumentaltakehome.wallbuilder.service.BuildSimulator.Simulation;
+import com.monumentaltakehome.wallbuilder.service.PlanCache;
+import com.monumentaltakehome.wallbuilder.service.PlanCache.PlanCacheStats;
+import com.monumentaltakehome.wallbuilder.service.PlanKey;
+import com.monumentaltakehome.wallbuilder.service.PlanService;
+import com.monumentaltakehome.wallbuilder.service.PlanStore;
+import com.monumentaltakehome.wallbuilder.service.PlanStore.PlanStoreStats;
+import com.monumentaltakehome.wallbuilder.service.PortfolioPlan;
+import com.monumentaltakehome.wallbuilder.service.SearchedPlan;
+import com.monumentaltakehome.wallbuilder.service.WildBondPortfolio;
 
 
 @RestController
-@CrossOrigin(origins = "http://127.0.0.1:5500")
+@CrossOrigin(origins = "http://127.0.0.1:5500", exposedHeaders = {WallController.PLAN_ID_HEADER, WallController.STRIDES_SAVED_HEADER, WallController.SEED_HEADER})
 public class WallController {
 
+    public static final String NDJSON = "application/x-ndjson";
+    // Identifies the plan a response belongs to, for re-planning it later
+    public static final String PLAN_ID_HEADER = "Plan-Id";
+    // Strides a searched plan saved over the greedy plan
+    public static final String STRIDES_SAVED_HEADER = "Strides-Saved";
+    // Seed a searched wild bond was laid out with, as a searched plan has no id to carry it
+    public static final String SEED_HEADER = "Seed";
+
+    @Autowired
+    private PlanService planService;
+
     @Autowired
-    private StretcherBondService stretcherBondService;
+    private PlanCache planCache;
 
     @Autowired
-    private FlemishBondService flemishBondService;
+    private PlanStore planStore;
 
     @Autowired
-    private WildBondService wildBondService;
+    private ObjectMapper objectMapper;
 
     @GetMapping("/stretcher-bond")
-    public WallDto getHalfsteensverband() {
-        return stretcherBondService.generateWall();
+    public ResponseEntity<WallDto> getHalfsteensverband(WallRequest request, @RequestParam(required = false) Long searchMillis) {
+        return plan(planService.planKey(BondType.STRETCHER, request), searchMillis);
     }
 
     @GetMapping("/flemish-bond")
-    public WallDto getFlemish() {
-        return flemishBondService.generateWall();
+    public ResponseEntity<WallDto> getFlemish(WallRequest request, @RequestParam(required = false) Long searchMillis) {
+        return plan(planService.planKey(BondType.FLEMISH, request), searchMillis);
     }
 
     @GetMapping("/wild-bond")
-    public WallDto getWildverband() {
-        return wildBondService.generateWall();
+    public ResponseEntity<WallDto> getWildverband(WallRequest request, @RequestParam(required = false) Long searchMillis) {
+        return plan(planService.planKey(BondType.WILD, request), searchMillis);
+    }
+
+    // Plans several wild bonds of the wall in parallel and returns the one that builds fastest, under its own plan id
+    @GetMapping("/wild-bond/portfolio")
+    public ResponseEntity<PortfolioPlan> getWildverbandPortfolio(WallRequest request, SimulationRequest timings,
+            @RequestParam(defaultValue = "16") int candidates, @RequestParam(required = false) Integer parallelism,
+            @RequestParam(defaultValue = "2000") long deadlineMillis) {
+        PortfolioPlan plan = planService.portfolioPlan(planService.planKey(BondType.WILD, request), candidates,
+            parallelism != null ? parallelism : WildBondPortfolio.WORKERS, Duration.ofMillis(deadlineMillis), timings.toTimings(BuildTimings.DEFAULT));
+        return ResponseEntity.ok().header(PLAN_ID_HEADER, plan.planId()).body(plan);
+    }
+
+    // Binary variants for clients that accept the format of WallPlanCodec, served from the plan store once planned
+    @GetMapping(value = "/stretcher-bond", produces = WallPlanCodec.MEDIA_TYPE)
+    public ResponseEntity<?> getEncodedHalfsteensverband(WallRequest request, @RequestParam(required = false) Long searchMillis) {
+        return encodedPlan(planService.planKey(BondType.STRETCHER, request), searchMillis);
+    }
+
+    @GetMapping(value = "/flemish-bond", produces = WallPlanCodec.MEDIA_TYPE)
+    public ResponseEntity<?> getEncodedFlemish(WallRequest request, @RequestParam(required = false) Long searchMillis) {
+        return encodedPlan(planService.planKey(BondType.FLEMISH, request), searchMillis);
+    }
+
+    @GetMapping(value = "/wild-bond", produces = WallPlanCodec.MEDIA_TYPE)
+    public ResponseEntity<?> getEncodedWildverband(WallRequest request, @RequestParam(required = false) Long searchMillis) {
+        return encodedPlan(planService.planKey(BondType.WILD, request), searchMillis);
+    }
+
+    // Streaming variants for clients that accept application/x-ndjson, writing one stride per line as it is planned
+    @GetMapping(value = "/stretcher-bond", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamHalfsteensverband(WallRequest request) {
+        return streamPlan(planService.planKey(BondType.STRETCHER, request));
+    }
+
+    @GetMapping(value = "/flemish-bond", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamFlemish(WallRequest request) {
+        return streamPlan(planService.planKey(BondType.FLEMISH, request));
+    }
+
+    @GetMapping(value = "/wild-bond", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamWildverband(WallRequest request) {
+        return streamPlan(planService.planKey(BondType.WILD, request));
+    }
+
+    // Plans the bricks that are not placed yet, for a robot that reports which bricks of the plan it has built
+    @PostMapping("/plans/{planId}/replan")
+    public ResponseEntity<WallDto> replan(@PathVariable String planId, @RequestBody ReplanRequest request) {
+        PlanKey key = planService.issuedPlanKey(planId);
+        return ResponseEntity.ok().header(PLAN_ID_HEADER, key.id()).body(planService.replan(key, request.placedBricks()));
+    }
+
+    // Plans the wall of a plan for several robots, each building its own zone of courses
+    @GetMapping("/plans/{planId}/zones")
+    public ResponseEntity<ZonePlanDto> planZones(@PathVariable String planId, @RequestParam int robots,
+            @RequestParam(defaultValue = "0") double clearance) {
+        PlanKey key = planService.issuedPlanKey(planId);
+        return ResponseEntity.ok().header(PLAN_ID_HEADER, key.id()).body(planService.planZones(key, robots, clearance));
+    }
+
+    // Estimates how long building a plan takes, split between several robots like the zones endpoint if robots are given
+    @GetMapping("/plans/{planId}/simulation")
+    public ResponseEntity<Simulation> simulate(@PathVariable String planId, SimulationRequest request, @RequestParam(required = false) Integer robots,
+            @RequestParam(defaultValue = "0") double clearance) {
+        PlanKey key = planService.issuedPlanKey(planId);
+        return ResponseEntity.ok().header(PLAN_ID_HEADER, key.id())
+            .body(planService.simulate(key, request.toTimings(BuildTimings.DEFAULT), robots, clearance));
+    }
+
+    // Plans greedily unless a search budget is given, in which case the plan takes up to that long to save strides.
+    // A searched plan has no id, as the wall's id names its greedy plan, so a wild bond's seed is sent on its own.
+    private ResponseEntity<WallDto> plan(PlanKey key, Long searchMillis) {
+        if (searchMillis == null) {
+            return ResponseEntity.ok().header(PLAN_ID_HEADER, key.id()).body(planService.getPlan(key));
+        }
+        SearchedPlan plan = planService.searchPlan(key, Duration.ofMillis(searchMillis));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(STRIDES_SAVED_HEADER, String.valueOf(plan.stridesSaved()));
+        if (key.seed() != null) {
+            response.header(SEED_HEADER, String.valueOf(key.seed()));
+        }
+        return response.body(plan.wall());
+    }
+
+    // Searched plans are not stored, so they are encoded from their DTOs like any other wall
+    private ResponseEntity<?> encodedPlan(PlanKey key, Long searchMillis) {
+        if (searchMillis != null) {
+            return plan(key, searchMillis);
+        }
+        return ResponseEntity.ok().header(PLAN_ID_HEADER, key.id()).body(planService.getEncodedPlan(key));
+    }
+
+    // A failed write means the client has gone, and rethrowing it stops the planner
+    private ResponseEntity<StreamingResponseBody> streamPlan(PlanKey key) {
+        StreamingResponseBody body = outputStream -> planService.streamPlan(key, stride -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(stride));
+                outputStream.write('\n');
+                outputStream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().header(PLAN_ID_HEADER, key.id()).body(body);
+    }
+
+    @GetMapping("/plan-cache")
+    public PlanCacheStats getPlanCacheStats() {
+        return planCache.stats();
+    }
+
+    @GetMapping("/plan-store")
+    public PlanStoreStats getPlanStoreStats() {
+        return planStore.stats();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleInvalidRequest(IllegalArgumentException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public String handleUnknownPlan(NoSuchElementException e) {
+        return e.getMessage();
     }
 }
@@ -0,0 +1,7 @@
+package com.monumentaltakehome.wallbuilder.domain;
+
+public enum BondType {
+    STRETCHER,
+    FLEMISH,
+    WILD
+}
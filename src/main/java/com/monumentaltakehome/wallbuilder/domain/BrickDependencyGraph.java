@@ -0,0 +1,210 @@
+package com.monumentaltakehome.wallbuilder.domain;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.OptionalInt;
+
+// Support graph over a wall layout, built once so placeability no longer rescans the whole wall.
+// Bricks are identified by their index in the layout, which is ordered by row and then by column.
+// Every dependency therefore has a lower id than its dependant, so the lowest ready id is always
+// a brick on the lowest placeable course.
+// Placements are recorded in an undo log so simulations can be rolled back instead of copying the graph.
+public class BrickDependencyGraph {
+
+    private final WallLayout layout;
+    private final int[][] dependants;
+
+    private final int[] unplacedDependencies;
+    private final BitSet placed;
+    private final BitSet ready;
+
+    // Each brick is placed at most once at a time, so the log never outgrows the wall
+    private final int[] placementLog;
+    private int placementCount;
+
+    public BrickDependencyGraph(WallLayout layout, boolean onlyPlaceAfterLeftNeigbour) {
+        this.layout = layout;
+        this.unplacedDependencies = new int[layout.size()];
+        this.placed = new BitSet(layout.size());
+        this.ready = new BitSet(layout.size());
+        this.placementLog = new int[layout.size()];
+
+        List<List<Integer>> dependantLists = new ArrayList<>();
+        for (int i = 0; i < layout.size(); i++) {
+            dependantLists.add(new ArrayList<>());
+        }
+
+        int rowStart = 0;
+        int previousRowStart = -1;
+        for (int i = 1; i <= layout.size(); i++) {
+            if (i == layout.size() || layout.rowNumber(i) != layout.rowNumber(rowStart)) {
+                if (previousRowStart != -1 && layout.rowNumber(previousRowStart) == layout.rowNumber(rowStart) - 1) {
+                    addFoundationEdges(previousRowStart, rowStart, i, dependantLists);
+                }
+                if (onlyPlaceAfterLeftNeigbour) {
+                    addLeftNeighbourEdges(rowStart, i, dependantLists);
+                }
+                previousRowStart = rowStart;
+                rowStart = i;
+            }
+        }
+
+        this.dependants = new int[layout.size()][];
+        for (int i = 0; i < layout.size(); i++) {
+            dependants[i] = dependantLists.get(i).stream().mapToInt(Integer::intValue).toArray();
+            if (unplacedDependencies[i] == 0) {
+                ready.set(i);
+            }
+        }
+    }
+
+    private BrickDependencyGraph(BrickDependencyGraph other) {
+        this.layout = other.layout;
+        this.dependants = other.dependants;
+        this.unplacedDependencies = other.unplacedDependencies.clone();
+        this.placed = (BitSet) other.placed.clone();
+        this.ready = (BitSet) other.ready.clone();
+        this.placementLog = other.placementLog.clone();
+        this.placementCount = other.placementCount;
+    }
+
+    // Bricks of the row below are ordered by x, so a single sweep finds every overlapping foundation brick
+    private void addFoundationEdges(int belowStart, int rowStart, int rowEnd, List<List<Integer>> dependantLists) {
+        int first = belowStart;
+        for (int i = rowStart; i < rowEnd; i++) {
+            while (first < rowStart && layout.x(first) + layout.width(first) <= layout.x(i)) {
+                first++;
+            }
+            for (int j = first; j < rowStart && layout.x(j) < layout.x(i) + layout.width(i); j++) {
+                if (layout.isFoundationOf(j, i)) {
+                    addEdge(j, i, dependantLists);
+                }
+            }
+        }
+    }
+
+    private void addLeftNeighbourEdges(int rowStart, int rowEnd, List<List<Integer>> dependantLists) {
+        for (int i = rowStart + 1; i < rowEnd; i++) {
+            addEdge(i - 1, i, dependantLists);
+        }
+    }
+
+    private void addEdge(int dependency, int dependant, List<List<Integer>> dependantLists) {
+        dependantLists.get(dependency).add(dependant);
+        unplacedDependencies[dependant]++;
+    }
+
+    public BrickDependencyGraph copy() {
+        return new BrickDependencyGraph(this);
+    }
+
+    public WallLayout layout() {
+        return layout;
+    }
+
+    public int size() {
+        return layout.size();
+    }
+
+    public Brick brick(int id) {
+        return layout.brick(id, placed.get(id));
+    }
+
+    public boolean isPlaced(int id) {
+        return placed.get(id);
+    }
+
+    // Placed bricks from fromId up to toId, indexed from fromId
+    public BitSet placedBetween(int fromId, int toId) {
+        return placed.get(fromId, toId);
+    }
+
+    public boolean isPlaceable(int id) {
+        return ready.get(id);
+    }
+
+    // Bricks that rest on or follow this brick, the returned array is shared and must not be modified
+    public int[] dependants(int id) {
+        return dependants[id];
+    }
+
+    // Including the extra dependency of a blocked brick, which is never placed
+    public int unplacedDependencyCount(int id) {
+        return unplacedDependencies[id];
+    }
+
+    public void place(int id) {
+        if (!ready.get(id)) {
+            throw new IllegalStateException(String.format("Brick %s is not placeable", id));
+        }
+        placed.set(id);
+        ready.clear(id);
+        for (int dependant : dependants[id]) {
+            if (--unplacedDependencies[dependant] == 0 && !placed.get(dependant)) {
+                ready.set(dependant);
+            }
+        }
+        placementLog[placementCount++] = id;
+    }
+
+    // Keeps a brick from ever becoming placeable, for bricks that depend on unplaced bricks outside this graph
+    public void block(int id) {
+        if (placed.get(id)) {
+            throw new IllegalStateException(String.format("Brick %s is already placed", id));
+        }
+        unplacedDependencies[id]++;
+        ready.clear(id);
+    }
+
+    public int checkpoint() {
+        return placementCount;
+    }
+
+    // Undo placements in reverse order, so every dependant is unplaced before its dependencies
+    public void rollback(int checkpoint) {
+        if (checkpoint < 0 || checkpoint > placementCount) {
+            throw new IllegalArgumentException(String.format("Invalid checkpoint: %s", checkpoint));
+        }
+        while (placementCount > checkpoint) {
+            int id = placementLog[--placementCount];
+            for (int dependant : dependants[id]) {
+                if (unplacedDependencies[dependant]++ == 0) {
+                    ready.clear(dependant);
+                }
+            }
+            placed.clear(id);
+            ready.set(id);
+        }
+    }
+
+    public int placementAt(int index) {
+        return placementLog[index];
+    }
+
+    // Dependencies always come earlier in the layout, so placing bricks in a single ordered pass
+    // matches repeatedly taking the first placeable brick within the envelope
+    public int placeAllWithin(BitSet coverage) {
+        if (!ready.intersects(coverage)) {
+            return 0;
+        }
+        int placedBricks = 0;
+        for (int id = coverage.nextSetBit(0); id >= 0; id = coverage.nextSetBit(id + 1)) {
+            if (ready.get(id)) {
+                place(id);
+                placedBricks++;
+            }
+        }
+        return placedBricks;
+    }
+
+    public OptionalInt lowestPlaceableBrick() {
+        return nextPlaceableBrick(0);
+    }
+
+    // The first placeable brick with this id or a higher one
+    public OptionalInt nextPlaceableBrick(int fromId) {
+        int id = ready.nextSetBit(fromId);
+        return id == -1 ? OptionalInt.empty() : OptionalInt.of(id);
+    }
+}
@@ -0,0 +1,20 @@
+package com.monumentaltakehome.wallbuilder.domain;
+
+// How long the robot takes over each part of a build. Times are in seconds and speeds in millimetres per second.
+// Relocating the envelope takes a fixed time to set up plus the move at relocationSpeed, and the arm moves between
+// bricks at armSpeed.
+public record BuildTimings(double placementSeconds, double armSpeed, double relocationSeconds, double relocationSpeed,
+        double fullHandlingSeconds, double halfHandlingSeconds, double threeQuarterHandlingSeconds, double queenCloserHandlingSeconds) {
+
+    public static final BuildTimings DEFAULT = new BuildTimings(4, 500, 20, 200, 2, 1.5, 1.8, 1.5);
+
+    public BuildTimings {
+        if (placementSeconds < 0 || relocationSeconds < 0 || fullHandlingSeconds < 0 || halfHandlingSeconds < 0
+                || threeQuarterHandlingSeconds < 0 || queenCloserHandlingSeconds < 0) {
+            throw new IllegalArgumentException("Build times must not be negative");
+        }
+        if (!(armSpeed > 0) || !(relocationSpeed > 0)) {
+            throw new IllegalArgumentException("Arm and relocation speeds must be positive");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.monumentaltakehome.wallbuilder.domain;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Lazily computed set of brick ids inside the build envelope for each envelope position, in layout units.
+// Coverage only depends on geometry, so it is computed once per position and shared by every stride
+// and candidate evaluation of a wall.
+public class EnvelopeCoverageIndex {
+
+    private final WallLayout layout;
+    private final int envelopeWidth;
+    private final int envelopeHeight;
+    // Bricks above the ceiling are outside every envelope
+    private final int ceilingY;
+    private final Map<Long, BitSet> coverageByPosition = new ConcurrentHashMap<>();
+    // Id of the first brick of each row, then the layout size
+    private final int[] rowStarts;
+
+    public EnvelopeCoverageIndex(WallLayout layout, int envelopeWidth, int envelopeHeight) {
+        this(layout, envelopeWidth, envelopeHeight, Integer.MAX_VALUE);
+    }
+
+    // For envelopes confined to the courses up to ceilingY
+    public EnvelopeCoverageIndex(WallLayout layout, int envelopeWidth, int envelopeHeight, int ceilingY) {
+        this.layout = layout;
+        this.envelopeWidth = envelopeWidth;
+        this.envelopeHeight = envelopeHeight;
+        this.ceilingY = ceilingY;
+
+        this.rowStarts = layout.rowStarts();
+    }
+
+    // The returned set is shared and must not be modified
+    public BitSet coverage(int envelopeX, int envelopeY) {
+        long position = (long) envelopeX << 32 | envelopeY & 0xffffffffL;
+        return coverageByPosition.computeIfAbsent(position, key -> computeCoverage(envelopeX, envelopeY));
+    }
+
+    // Bricks are ordered by y and then by x within a row, so each row inside the envelope's height is searched for its
+    // first brick inside the envelope's width
+    private BitSet computeCoverage(int envelopeX, int envelopeY) {
+        BitSet coverage = new BitSet(layout.size());
+        int first = layout.firstBrickAtOrAbove(envelopeY);
+        int topY = (int) Math.min((long) envelopeY + envelopeHeight, ceilingY);
+        for (int row = rowOf(first); row < rowStarts.length - 1 && layout.y(rowStarts[row]) <= topY; row++) {
+            for (int id = firstBrickFrom(row, envelopeX); id < rowStarts[row + 1] && layout.x(id) <= envelopeX + envelopeWidth; id++) {
+                if (layout.y(id) >= envelopeY && layout.y(id) <= topY) {
+                    coverage.set(id);
+                }
+            }
+        }
+        return coverage;
+    }
+
+    private int rowOf(int id) {
+        int row = Arrays.binarySearch(rowStarts, id);
+        return row >= 0 ? row : -row - 2;
+    }
+
+    private int firstBrickFrom(int row, int x) {
+        int low = rowStarts[row];
+        int high = rowStarts[row + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (layout.x(mid) < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
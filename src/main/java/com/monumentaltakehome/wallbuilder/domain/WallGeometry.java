@@ -0,0 +1,45 @@
+package com.monumentaltakehome.wallbuilder.domain;
+
+// Requested wall and build envelope dimensions in millimetres.
+// Bond services lay the largest wall of whole bricks and courses that fits within the wall length and height.
+public record WallGeometry(double wallLength, double wallHeight, double envelopeWidth, double envelopeHeight) {
+
+    // Bounds the bricks of a plan and of a stride, so that a request cannot exhaust the heap or overflow the layout
+    public static final double MAXIMUM_WALL_LENGTH = 100_000;
+    public static final double MAXIMUM_WALL_HEIGHT = 10_000;
+    public static final double MAXIMUM_ENVELOPE_SIZE = 10_000;
+
+    public WallGeometry {
+        // Written so that NaN fails too
+        if (!(wallLength > 0 && wallHeight > 0 && envelopeWidth > 0 && envelopeHeight > 0)) {
+            throw new IllegalArgumentException("Wall and envelope dimensions must be positive");
+        }
+        if (wallLength > MAXIMUM_WALL_LENGTH || wallHeight > MAXIMUM_WALL_HEIGHT) {
+            throw new IllegalArgumentException(String.format("Walls can be at most %s mm long and %s mm high", MAXIMUM_WALL_LENGTH, MAXIMUM_WALL_HEIGHT));
+        }
+        if (envelopeWidth > MAXIMUM_ENVELOPE_SIZE || envelopeHeight > MAXIMUM_ENVELOPE_SIZE) {
+            throw new IllegalArgumentException(String.format("Envelopes can be at most %s mm wide and high", MAXIMUM_ENVELOPE_SIZE));
+        }
+        // Fail early on dimensions the layout cannot represent exactly
+        WallLayout.toUnits(wallLength);
+        WallLayout.toUnits(wallHeight);
+        WallLayout.toUnits(envelopeWidth);
+        WallLayout.toUnits(envelopeHeight);
+    }
+
+    public int wallLengthUnits() {
+        return WallLayout.toUnits(wallLength);
+    }
+
+    public int wallHeightUnits() {
+        return WallLayout.toUnits(wallHeight);
+    }
+
+    public int envelopeWidthUnits() {
+        return WallLayout.toUnits(envelopeWidth);
+    }
+
+    public int envelopeHeightUnits() {
+        return WallLayout.toUnits(envelopeHeight);
+    }
+}
@@ -0,0 +1,186 @@
+package com.monumentaltakehome.wallbuilder.domain;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Compact struct-of-arrays model of a bond map, with one entry per brick in parallel int arrays.
+// Geometry is held in exact fixed point (UNITS_PER_MM units per millimetre) so joint arithmetic and envelope
+// comparisons are exact. Bricks are ordered by row and then by column, and Brick records are only built as views.
+public class WallLayout {
+
+    public static final int UNITS_PER_MM = 10;
+
+    private final int[] x;
+    private final int[] y;
+    private final int[] width;
+    private final int[] height;
+    private final int[] rowNumber;
+    private final int[] columnNumber;
+    // Id of the first brick of each row, then the layout size
+    private final int[] rowStarts;
+
+    private WallLayout(Builder builder) {
+        this.x = Arrays.copyOf(builder.x, builder.size);
+        this.y = Arrays.copyOf(builder.y, builder.size);
+        this.width = Arrays.copyOf(builder.width, builder.size);
+        this.height = Arrays.copyOf(builder.height, builder.size);
+        this.rowNumber = Arrays.copyOf(builder.rowNumber, builder.size);
+        this.columnNumber = Arrays.copyOf(builder.columnNumber, builder.size);
+        int[] rowStarts = new int[builder.size + 1];
+        int rows = 0;
+        for (int id = 0; id < builder.size; id++) {
+            if (id == 0 || rowNumber[id] != rowNumber[id - 1]) {
+                rowStarts[rows++] = id;
+            }
+        }
+        rowStarts[rows] = builder.size;
+        this.rowStarts = Arrays.copyOf(rowStarts, rows + 1);
+    }
+
+    public static int toUnits(double millimetres) {
+        double units = millimetres * UNITS_PER_MM;
+        if (Math.abs(units - Math.rint(units)) > 1e-6) {
+            throw new IllegalArgumentException(String.format("%smm is not a whole number of layout units", millimetres));
+        }
+        return Math.toIntExact(Math.round(units));
+    }
+
+    public static double toMillimetres(int units) {
+        return (double) units / UNITS_PER_MM;
+    }
+
+    public int size() {
+        return x.length;
+    }
+
+    public int x(int id) {
+        return x[id];
+    }
+
+    public int y(int id) {
+        return y[id];
+    }
+
+    public int width(int id) {
+        return width[id];
+    }
+
+    public int height(int id) {
+        return height[id];
+    }
+
+    public int rowNumber(int id) {
+        return rowNumber[id];
+    }
+
+    public int columnNumber(int id) {
+        return columnNumber[id];
+    }
+
+    // Id of the first brick of each row, rows being numbered from 0 at the bottom, then the layout size.
+    // The array is a copy, so callers may keep it.
+    public int[] rowStarts() {
+        return rowStarts.clone();
+    }
+
+    public int rows() {
+        return rowStarts.length - 1;
+    }
+
+    // Id of the first brick whose bottom edge is at or above y, or the layout size if there is none.
+    // Rows are laid bottom up, so ids are ordered by y.
+    public int firstBrickAtOrAbove(int y) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.y[mid] < y) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Id of the brick whose bottom left corner is at x, y, or -1 if there is none.
+    // Bricks at the same y are laid left to right, so their ids are ordered by x.
+    public int indexOf(int x, int y) {
+        int id = Arrays.binarySearch(this.x, firstBrickAtOrAbove(y), firstBrickAtOrAbove(y + 1), x);
+        return id >= 0 ? id : -1;
+    }
+
+    public boolean isFoundationOf(int foundationId, int id) {
+        // Check if the two bricks overlap horizontally
+        return x[foundationId] < x[id] + width[id] && x[id] < x[foundationId] + width[foundationId];
+    }
+
+    public Brick brick(int id, boolean placed) {
+        return new Brick(toMillimetres(x[id]), toMillimetres(y[id]), toMillimetres(width[id]), toMillimetres(height[id]),
+            placed, rowNumber[id], columnNumber[id]);
+    }
+
+    public List<Brick> bricks() {
+        return new AbstractList<>() {
+            @Override
+            public Brick get(int id) {
+                return brick(id, false);
+            }
+
+            @Override
+            public int size() {
+                return WallLayout.this.size();
+            }
+        };
+    }
+
+    // Bricks must be added row by row from left to right; columns are numbered in the order bricks are added
+    public static class Builder {
+
+        private int[] x = new int[64];
+        private int[] y = new int[64];
+        private int[] width = new int[64];
+        private int[] height = new int[64];
+        private int[] rowNumber = new int[64];
+        private int[] columnNumber = new int[64];
+        private int size;
+
+        public Builder addBrick(int rowNumber, int x, int y, int width, int height) {
+            int columnNumber = 0;
+            if (size > 0) {
+                int previous = size - 1;
+                boolean sameRow = this.rowNumber[previous] == rowNumber;
+                if (sameRow ? this.x[previous] + this.width[previous] > x : this.rowNumber[previous] > rowNumber || this.y[previous] > y) {
+                    throw new IllegalArgumentException(String.format("Brick at row %s, x %s is not laid in order", rowNumber, x));
+                }
+                columnNumber = sameRow ? this.columnNumber[previous] + 1 : 0;
+            }
+            if (size == this.x.length) {
+                grow();
+            }
+            this.x[size] = x;
+            this.y[size] = y;
+            this.width[size] = width;
+            this.height[size] = height;
+            this.rowNumber[size] = rowNumber;
+            this.columnNumber[size] = columnNumber;
+            size++;
+            return this;
+        }
+
+        private void grow() {
+            int capacity = x.length * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+            rowNumber = Arrays.copyOf(rowNumber, capacity);
+            columnNumber = Arrays.copyOf(columnNumber, capacity);
+        }
+
+        public WallLayout build() {
+            return new WallLayout(this);
+        }
+    }
+}
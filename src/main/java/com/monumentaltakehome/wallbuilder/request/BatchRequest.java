@@ -0,0 +1,17 @@
+package com.monumentaltakehome.wallbuilder.request;
+
+import java.util.List;
+
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+
+// Walls to plan in the background as one batch
+public record BatchRequest(List<BatchWall> walls) {
+
+    // A wall request together with its bond, with the same optional dimensions and seed as the bond endpoints
+    public record BatchWall(BondType bondType, Double length, Double height, Double envelopeWidth, Double envelopeHeight, Long seed) {
+
+        public WallRequest toWallRequest() {
+            return new WallRequest(length, height, envelopeWidth, envelopeHeight, seed);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.monumentaltakehome.wallbuilder.request;
+
+import java.util.List;
+
+// Bricks of a plan that are already placed on site, identified by the bottom left corner of each brick in millimetres
+public record ReplanRequest(List<BrickPosition> placedBricks) {
+
+    public record BrickPosition(double x, double y) {}
+}
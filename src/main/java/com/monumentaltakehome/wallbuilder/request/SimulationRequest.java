@@ -0,0 +1,20 @@
+package com.monumentaltakehome.wallbuilder.request;
+
+import com.monumentaltakehome.wallbuilder.domain.BuildTimings;
+
+// Optional build times in seconds and speeds in millimetres per second, any omitted one keeps the default
+public record SimulationRequest(Double placementSeconds, Double armSpeed, Double relocationSeconds, Double relocationSpeed,
+        Double fullHandlingSeconds, Double halfHandlingSeconds, Double threeQuarterHandlingSeconds, Double queenCloserHandlingSeconds) {
+
+    public BuildTimings toTimings(BuildTimings defaults) {
+        return new BuildTimings(
+            placementSeconds != null ? placementSeconds : defaults.placementSeconds(),
+            armSpeed != null ? armSpeed : defaults.armSpeed(),
+            relocationSeconds != null ? relocationSeconds : defaults.relocationSeconds(),
+            relocationSpeed != null ? relocationSpeed : defaults.relocationSpeed(),
+            fullHandlingSeconds != null ? fullHandlingSeconds : defaults.fullHandlingSeconds(),
+            halfHandlingSeconds != null ? halfHandlingSeconds : defaults.halfHandlingSeconds(),
+            threeQuarterHandlingSeconds != null ? threeQuarterHandlingSeconds : defaults.threeQuarterHandlingSeconds(),
+            queenCloserHandlingSeconds != null ? queenCloserHandlingSeconds : defaults.queenCloserHandlingSeconds());
+    }
+}
@@ -0,0 +1,16 @@
+package com.monumentaltakehome.wallbuilder.request;
+
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+
+// Optional wall and envelope dimensions in millimetres, any omitted dimension keeps the bond's default.
+// The seed makes a wild bond reproducible and is ignored by the other bonds.
+public record WallRequest(Double length, Double height, Double envelopeWidth, Double envelopeHeight, Long seed) {
+
+    public WallGeometry toGeometry(WallGeometry defaults) {
+        return new WallGeometry(
+            length != null ? length : defaults.wallLength(),
+            height != null ? height : defaults.wallHeight(),
+            envelopeWidth != null ? envelopeWidth : defaults.envelopeWidth(),
+            envelopeHeight != null ? envelopeHeight : defaults.envelopeHeight());
+    }
+}
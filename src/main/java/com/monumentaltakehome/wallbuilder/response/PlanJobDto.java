@@ -0,0 +1,11 @@
+package com.monumentaltakehome.wallbuilder.response;
+
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.service.PlanJob;
+
+public record PlanJobDto(String id, String planId, BondType bondType, PlanJob.Status status, String error) {
+
+    public static PlanJobDto of(PlanJob job) {
+        return new PlanJobDto(job.id(), job.key().id(), job.key().bondType(), job.status(), job.error());
+    }
+}
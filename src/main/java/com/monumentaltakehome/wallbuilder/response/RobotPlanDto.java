@@ -0,0 +1,6 @@
+package com.monumentaltakehome.wallbuilder.response;
+
+import java.util.List;
+
+// A robot's strides in build order, within its zone of courses from zoneFloor up to the next robot's
+public record RobotPlanDto(int robot, double zoneFloor, List<StrideDto> strides) {}
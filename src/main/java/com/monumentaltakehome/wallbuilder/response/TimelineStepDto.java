@@ -0,0 +1,6 @@
+package com.monumentaltakehome.wallbuilder.response;
+
+import java.util.List;
+
+// Strides that run at the same time, at most one per robot
+public record TimelineStepDto(int step, List<Integer> strideIndices) {}
@@ -0,0 +1,173 @@
+package com.monumentaltakehome.wallbuilder.response;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
+// Compact binary form of a plan, served to clients that accept MEDIA_TYPE. frontend/wallPlan.js decodes it in the browser.
+// Layout, with every number an unsigned LEB128 varint:
+//   "WPL1", units per millimetre, stride count, then the number of bricks in each stride
+//   per brick in build order: x, y, width and height in fixed-point units, each as the zigzag encoded difference from
+//   the previous brick (starting from zero)
+// Consecutive bricks are mostly neighbours in the same course, so most differences fit in one or two bytes.
+// Java clients can decode plans with decode, which only needs the DTOs.
+public final class WallPlanCodec {
+
+    public static final String MEDIA_TYPE = "application/vnd.wallbuilder.plan";
+
+    private static final byte[] MAGIC = {'W', 'P', 'L', '1'};
+    private static final int UNITS_PER_MM = WallLayout.UNITS_PER_MM;
+
+    private WallPlanCodec() {}
+
+    public static byte[] encode(WallDto wall) {
+        List<BrickDto> bricks = wall.bricks();
+        // Bricks are grouped by stride, in stride order
+        List<Integer> strideSizes = new ArrayList<>();
+        for (int i = 0; i < bricks.size(); i++) {
+            int strideIndex = bricks.get(i).strideIndex();
+            if (strideIndex == strideSizes.size()) {
+                strideSizes.add(0);
+            } else if (strideIndex != strideSizes.size() - 1) {
+                throw new IllegalArgumentException(String.format("Brick %s is out of stride order", i));
+            }
+            strideSizes.set(strideIndex, strideSizes.get(strideIndex) + 1);
+        }
+
+        Writer writer = new Writer(MAGIC.length + 5 * (2 + strideSizes.size()) + 4 * 5 * bricks.size());
+        writer.bytes(MAGIC);
+        writer.varint(UNITS_PER_MM);
+        writer.varint(strideSizes.size());
+        strideSizes.forEach(writer::varint);
+        int x = 0, y = 0, width = 0, height = 0;
+        for (BrickDto brick : bricks) {
+            x = writer.delta(x, brick.x());
+            y = writer.delta(y, brick.y());
+            width = writer.delta(width, brick.width());
+            height = writer.delta(height, brick.height());
+        }
+        return writer.toByteArray();
+    }
+
+    // Decodes the remaining bytes of the buffer, without moving its position
+    public static WallDto decode(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(buffer.position(), bytes);
+        return decode(bytes);
+    }
+
+    public static WallDto decode(byte[] bytes) {
+        if (bytes.length < MAGIC.length || !Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IllegalArgumentException("Not an encoded wall plan");
+        }
+        Reader reader = new Reader(bytes, MAGIC.length);
+        double unitsPerMm = reader.varint();
+        if (unitsPerMm <= 0) {
+            throw new IllegalArgumentException("Malformed units per millimetre in wall plan");
+        }
+        // Sizes are checked against the bytes left before anything is allocated, as every stride size takes at least
+        // one byte and every brick at least four, so a corrupt plan cannot ask for more than its own length
+        int strideCount = reader.varint();
+        if (strideCount < 0 || strideCount > reader.remaining()) {
+            throw new IllegalArgumentException("Malformed stride count in wall plan");
+        }
+        int[] strideSizes = new int[strideCount];
+        long brickCount = 0;
+        for (int i = 0; i < strideSizes.length; i++) {
+            strideSizes[i] = reader.varint();
+            if (strideSizes[i] < 0) {
+                throw new IllegalArgumentException("Malformed stride size in wall plan");
+            }
+            brickCount += strideSizes[i];
+        }
+        if (brickCount > reader.remaining() / 4) {
+            throw new IllegalArgumentException("Truncated wall plan");
+        }
+
+        List<BrickDto> bricks = new ArrayList<>((int) brickCount);
+        int x = 0, y = 0, width = 0, height = 0;
+        for (int strideIndex = 0; strideIndex < strideSizes.length; strideIndex++) {
+            for (int i = 0; i < strideSizes[strideIndex]; i++) {
+                x += reader.zigzag();
+                y += reader.zigzag();
+                width += reader.zigzag();
+                height += reader.zigzag();
+                bricks.add(new BrickDto(x / unitsPerMm, y / unitsPerMm, width / unitsPerMm, height / unitsPerMm, strideIndex));
+            }
+        }
+        return new WallDto(bricks);
+    }
+
+    private static class Writer {
+
+        private final byte[] buffer;
+        private int size;
+
+        Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void bytes(byte[] bytes) {
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void varint(int value) {
+            while ((value & ~0x7f) != 0) {
+                buffer[size++] = (byte) (value & 0x7f | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        // Writes the difference from the previous value and returns the new value in units
+        int delta(int previous, double millimetres) {
+            int value = WallLayout.toUnits(millimetres);
+            int difference = value - previous;
+            varint(difference << 1 ^ difference >> 31);
+            return value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new IllegalArgumentException("Truncated wall plan");
+                }
+                byte b = bytes[position++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in wall plan");
+        }
+
+        int remaining() {
+            return bytes.length - position;
+        }
+
+        int zigzag() {
+            int value = varint();
+            return value >>> 1 ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.monumentaltakehome.wallbuilder.response;
+
+import java.util.List;
+
+public record ZonePlanDto(List<RobotPlanDto> robots, List<TimelineStepDto> timeline) {}
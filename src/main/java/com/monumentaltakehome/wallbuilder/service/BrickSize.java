@@ -0,0 +1,26 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
+// The sizes of brick the bonds lay, which only differ in width
+public enum BrickSize {
+    FULL(WallService.FULL_BRICK_UNITS),
+    HALF(WallService.HALF_BRICK_UNITS),
+    THREE_QUARTER(WildBondService.THREE_QUARTER_UNITS),
+    QUEEN_CLOSER(FlemishBondService.QUEEN_CLOSER_UNITS);
+
+    private final int widthUnits;
+
+    BrickSize(int widthUnits) {
+        this.widthUnits = widthUnits;
+    }
+
+    public static BrickSize of(int widthUnits) {
+        for (BrickSize size : values()) {
+            if (size.widthUnits == widthUnits) {
+                return size;
+            }
+        }
+        throw new IllegalArgumentException(String.format("No brick is %s mm wide", WallLayout.toMillimetres(widthUnits)));
+    }
+}
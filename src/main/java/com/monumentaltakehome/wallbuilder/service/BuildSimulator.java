@@ -0,0 +1,260 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.BuildTimings;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.response.BrickDto;
+import com.monumentaltakehome.wallbuilder.service.WallService.Stride;
+import com.monumentaltakehome.wallbuilder.service.ZonePlanner.RobotStride;
+
+// Replays a plan against BuildTimings to estimate how long the wall takes to build. Each robot works through its
+// strides in order: it relocates the envelope, then sets down the stride's bricks one after the other, moving the arm
+// between them. A brick waits for the bricks it rests on and its left neighbour, and a stride waits for every stride
+// of earlier steps, as strides of the same step run together. Bricks outside the plan count as built.
+// Every activity starts as soon as the activity it waits on longest finishes, so following those back from the last
+// one to finish gives the critical path. A simulation takes a few passes over the plan's bricks, so candidate plans
+// can be ranked by build time by the thousand.
+public class BuildSimulator {
+
+    // Cause of an activity that waited on its stride's relocation, or on nothing
+    private static final int RELOCATION = -1;
+    private static final int NONE = -2;
+
+    private final WallLayout layout;
+    private final MotionCostModel armTravel;
+    private final BuildTimings timings;
+    private final int[][] dependencies;
+    private final double[] brickSeconds;
+
+    public BuildSimulator(WallLayout layout, boolean onlyPlaceAfterLeftNeigbour, MotionCostModel armTravel, BuildTimings timings) {
+        this.layout = layout;
+        this.armTravel = armTravel;
+        this.timings = timings;
+        BrickDependencyGraph graph = new BrickDependencyGraph(layout, onlyPlaceAfterLeftNeigbour);
+        int[] dependencyCounts = new int[layout.size()];
+        for (int id = 0; id < layout.size(); id++) {
+            for (int dependant : graph.dependants(id)) {
+                dependencyCounts[dependant]++;
+            }
+        }
+        this.dependencies = new int[layout.size()][];
+        for (int id = 0; id < layout.size(); id++) {
+            dependencies[id] = new int[dependencyCounts[id]];
+            dependencyCounts[id] = 0;
+        }
+        this.brickSeconds = new double[layout.size()];
+        for (int id = 0; id < layout.size(); id++) {
+            for (int dependant : graph.dependants(id)) {
+                dependencies[dependant][dependencyCounts[dependant]++] = id;
+            }
+            brickSeconds[id] = timings.placementSeconds() + handlingSeconds(BrickSize.of(layout.width(id)));
+        }
+    }
+
+    // Strides are taken step by step, and in the given order within a step. Throws IllegalArgumentException for a plan
+    // that places a brick before a brick it depends on.
+    public Simulation simulate(List<RobotStride> plan) {
+        List<RobotStride> strides = plan.stream().sorted(Comparator.comparingInt(RobotStride::step)).toList();
+        int robots = strides.stream().mapToInt(RobotStride::robot).max().orElse(-1) + 1;
+        BitSet planned = new BitSet(layout.size());
+        for (RobotStride robotStride : strides) {
+            for (int id : robotStride.stride().brickIds()) {
+                planned.set(id);
+            }
+        }
+
+        double[] start = new double[layout.size()];
+        double[] finish = new double[layout.size()];
+        int[] cause = new int[layout.size()];
+        int[] strideOf = new int[layout.size()];
+        BitSet built = new BitSet(layout.size());
+        double[] relocationStart = new double[strides.size()];
+        int[] relocationCause = new int[strides.size()];
+
+        double[] robotFree = new double[robots];
+        int[] robotLastBrick = new int[robots];
+        int[] robotLastStride = new int[robots];
+        Arrays.fill(robotLastBrick, NONE);
+        Arrays.fill(robotLastStride, -1);
+        double[] laying = new double[robots];
+        double[] relocating = new double[robots];
+
+        // Latest finish of the strides of earlier steps, and of all strides so far
+        double barrier = 0;
+        int barrierBrick = NONE;
+        double latest = 0;
+        int latestBrick = NONE;
+        List<StrideTiming> timeline = new ArrayList<>(strides.size());
+        for (int s = 0; s < strides.size(); s++) {
+            RobotStride robotStride = strides.get(s);
+            int robot = robotStride.robot();
+            int[] brickIds = robotStride.stride().brickIds();
+            if (s > 0 && robotStride.step() != strides.get(s - 1).step()) {
+                barrier = latest;
+                barrierBrick = latestBrick;
+            }
+
+            double relocationSeconds = timings.relocationSeconds();
+            if (robotLastStride[robot] >= 0) {
+                int[] previousIds = strides.get(robotLastStride[robot]).stride().brickIds();
+                relocationSeconds += WallLayout.toMillimetres(anchorDistance(previousIds, brickIds)) / timings.relocationSpeed();
+            }
+            relocationStart[s] = Math.max(robotFree[robot], barrier);
+            relocationCause[s] = robotFree[robot] >= barrier ? robotLastBrick[robot] : barrierBrick;
+            relocating[robot] += relocationSeconds;
+            double armFree = relocationStart[s] + relocationSeconds;
+
+            int previous = RELOCATION;
+            for (int id : brickIds) {
+                double armReady = armFree;
+                if (previous != RELOCATION) {
+                    double travelSeconds = WallLayout.toMillimetres(armTravel.cost(layout, previous, id)) / timings.armSpeed();
+                    armReady += travelSeconds;
+                    laying[robot] += travelSeconds;
+                }
+                start[id] = armReady;
+                cause[id] = previous;
+                for (int dependency : dependencies[id]) {
+                    if (!planned.get(dependency)) {
+                        continue;
+                    }
+                    if (!built.get(dependency)) {
+                        throw new IllegalArgumentException(String.format("Brick at %s is placed before the brick at %s", position(id), position(dependency)));
+                    }
+                    if (finish[dependency] > start[id]) {
+                        start[id] = finish[dependency];
+                        cause[id] = dependency;
+                    }
+                }
+                finish[id] = start[id] + brickSeconds[id];
+                laying[robot] += brickSeconds[id];
+                strideOf[id] = s;
+                built.set(id);
+                armFree = finish[id];
+                previous = id;
+            }
+
+            robotFree[robot] = armFree;
+            robotLastBrick[robot] = previous;
+            robotLastStride[robot] = s;
+            if (armFree > latest || latestBrick == NONE) {
+                latest = armFree;
+                latestBrick = previous;
+            }
+            timeline.add(new StrideTiming(robotStride.stride().strideIndex(), robot, relocationStart[s],
+                relocationStart[s] + relocationSeconds, armFree));
+        }
+
+        List<RobotUtilisation> utilisation = new ArrayList<>(robots);
+        for (int robot = 0; robot < robots; robot++) {
+            utilisation.add(new RobotUtilisation(robot, laying[robot], relocating[robot], Math.max(0, latest - laying[robot] - relocating[robot]),
+                latest > 0 ? laying[robot] / latest : 0));
+        }
+        return new Simulation(latest, timeline, utilisation, criticalPath(latestBrick, strides, start, finish, cause, strideOf, relocationStart, relocationCause));
+    }
+
+    // The strides of a plan for one robot, one step each, with its bricks in layout ids
+    static List<RobotStride> robotStrides(WallLayout layout, List<BrickDto> bricks) {
+        List<RobotStride> strides = new ArrayList<>();
+        for (int from = 0, to = 0; from < bricks.size(); from = to) {
+            int strideIndex = bricks.get(from).strideIndex();
+            while (to < bricks.size() && bricks.get(to).strideIndex() == strideIndex) {
+                to++;
+            }
+            strides.add(new RobotStride(0, strides.size(), new Stride(strideIndex, brickIds(layout, bricks.subList(from, to)))));
+        }
+        return strides;
+    }
+
+    static int[] brickIds(WallLayout layout, List<BrickDto> bricks) {
+        int[] brickIds = new int[bricks.size()];
+        for (int i = 0; i < brickIds.length; i++) {
+            brickIds[i] = layout.indexOf(WallLayout.toUnits(bricks.get(i).x()), WallLayout.toUnits(bricks.get(i).y()));
+        }
+        return brickIds;
+    }
+
+    // Follows the longest waits back from the last brick, collecting a segment for every stride the path passes through
+    private static List<CriticalSegment> criticalPath(int lastBrick, List<RobotStride> strides, double[] start, double[] finish, int[] cause,
+            int[] strideOf, double[] relocationStart, int[] relocationCause) {
+        List<CriticalSegment> segments = new ArrayList<>();
+        int id = lastBrick;
+        while (id >= 0) {
+            int s = strideOf[id];
+            double segmentFinish = finish[id];
+            int bricks = 0;
+            double segmentStart;
+            int next;
+            while (true) {
+                bricks++;
+                if (cause[id] == RELOCATION) {
+                    segmentStart = relocationStart[s];
+                    next = relocationCause[s];
+                    break;
+                }
+                if (strideOf[cause[id]] != s) {
+                    segmentStart = start[id];
+                    next = cause[id];
+                    break;
+                }
+                id = cause[id];
+            }
+            RobotStride robotStride = strides.get(s);
+            segments.add(new CriticalSegment(robotStride.robot(), robotStride.stride().strideIndex(), segmentStart, segmentFinish, bricks));
+            id = next;
+        }
+        return segments.reversed();
+    }
+
+    private double handlingSeconds(BrickSize size) {
+        return switch (size) {
+            case FULL -> timings.fullHandlingSeconds();
+            case HALF -> timings.halfHandlingSeconds();
+            case THREE_QUARTER -> timings.threeQuarterHandlingSeconds();
+            case QUEEN_CLOSER -> timings.queenCloserHandlingSeconds();
+        };
+    }
+
+    // Distance between the lower left corners of the bricks of two strides, which stand in for their envelopes
+    private int anchorDistance(int[] fromIds, int[] toIds) {
+        return (int) Math.round(Math.hypot(minX(toIds) - minX(fromIds), minY(toIds) - minY(fromIds)));
+    }
+
+    private int minX(int[] brickIds) {
+        int minX = Integer.MAX_VALUE;
+        for (int id : brickIds) {
+            minX = Math.min(minX, layout.x(id));
+        }
+        return minX;
+    }
+
+    private int minY(int[] brickIds) {
+        int minY = Integer.MAX_VALUE;
+        for (int id : brickIds) {
+            minY = Math.min(minY, layout.y(id));
+        }
+        return minY;
+    }
+
+    private String position(int id) {
+        return String.format("x: %s, y: %s", WallLayout.toMillimetres(layout.x(id)), WallLayout.toMillimetres(layout.y(id)));
+    }
+
+    // Times are in seconds from the start of the build
+    public record Simulation(double eta, List<StrideTiming> timeline, List<RobotUtilisation> robots, List<CriticalSegment> criticalPath) {}
+
+    public record StrideTiming(int strideIndex, int robot, double relocationStart, double start, double finish) {}
+
+    // Laying includes moving the arm between bricks, and utilisation is the share of the build spent laying bricks
+    public record RobotUtilisation(int robot, double laying, double relocating, double waiting, double utilisation) {}
+
+    // Consecutive activities of one stride on the critical path, from its relocation or the brick that waited on
+    // another stride up to the last of its bricks on the path
+    public record CriticalSegment(int robot, int strideIndex, double start, double finish, int bricks) {}
+}
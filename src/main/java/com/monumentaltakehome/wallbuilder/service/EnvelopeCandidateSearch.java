@@ -0,0 +1,72 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.EnvelopeCoverageIndex;
+
+// Finds the envelope X that places the most bricks at a given Y.
+// A parallel search splits the candidates into at most `parallelism` contiguous chunks, each simulated on its own
+// copy of the planning state on a pool shared by all requests. Ties go to the lowest X, exactly as in the serial search.
+final class EnvelopeCandidateSearch {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private EnvelopeCandidateSearch() {}
+
+    static int findOptimumBuildEnvX(int[] candidateXs, int buildEnvY, BrickDependencyGraph graph,
+            EnvelopeCoverageIndex coverageIndex, int parallelism) {
+        if (candidateXs.length == 0) {
+            return 0;
+        }
+        int chunks = Math.min(parallelism, candidateXs.length);
+        if (chunks <= 1) {
+            return candidateXs[bestCandidate(candidateXs, 0, candidateXs.length, buildEnvY, graph, coverageIndex).index()];
+        }
+
+        List<Callable<Candidate>> tasks = new ArrayList<>();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = chunk * candidateXs.length / chunks;
+            int to = (chunk + 1) * candidateXs.length / chunks;
+            BrickDependencyGraph chunkGraph = graph.copy();
+            tasks.add(() -> bestCandidate(candidateXs, from, to, buildEnvY, chunkGraph, coverageIndex));
+        }
+
+        Candidate best = new Candidate(0, 0);
+        try {
+            for (Future<Candidate> result : POOL.invokeAll(tasks)) {
+                if (result.get().strideSize() > best.strideSize()) {
+                    best = result.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching for the optimum build envelope", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to search for the optimum build envelope", e.getCause());
+        }
+        return candidateXs[best.index()];
+    }
+
+    // Simulates each candidate in place and rolls it back, keeping the first candidate with the largest stride
+    private static Candidate bestCandidate(int[] candidateXs, int from, int to, int buildEnvY,
+            BrickDependencyGraph graph, EnvelopeCoverageIndex coverageIndex) {
+        Candidate best = new Candidate(from, 0);
+        for (int i = from; i < to; i++) {
+            int checkpoint = graph.checkpoint();
+            int strideSize = graph.placeAllWithin(coverageIndex.coverage(candidateXs[i], buildEnvY));
+            graph.rollback(checkpoint);
+            if (strideSize > best.strideSize()) {
+                best = new Candidate(i, strideSize);
+            }
+        }
+        return best;
+    }
+
+    private record Candidate(int index, int strideSize) {}
+}
@@ -0,0 +1,104 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.OptionalInt;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
+// Proposes only the envelope Xs where the set of bricks a stride would place changes, instead of a fixed grid.
+// A brick is inside an envelope when its left edge is, so on its own it can be placed from x - envelopeWidth to x. It is
+// placed in the stride when the envelope is also within the range of every unplaced brick it depends on, so each brick
+// has one range of Xs, found in a single pass in id order. Every stride is then the set of ranges containing its X, and
+// is matched or beaten by the last range start at or before that X. A start is dropped when no range ends before the
+// next start, since the next one then places a superset. Envelopes below the lowest placeable course place nothing, so
+// the envelope's Y stays pinned to it and only X is swept.
+final class EnvelopeCandidates {
+
+    private final int envelopeWidth;
+    private final int envelopeHeight;
+    private final int minX;
+    private final int maxX;
+
+    EnvelopeCandidates(int envelopeWidth, int envelopeHeight, int minX, int maxX) {
+        this.envelopeWidth = envelopeWidth;
+        this.envelopeHeight = envelopeHeight;
+        this.minX = minX;
+        this.maxX = Math.max(minX, maxX);
+    }
+
+    int maxX() {
+        return maxX;
+    }
+
+    // Ascending, so that ties in the candidate search still go to the lowest X
+    int[] xs(BrickDependencyGraph graph, int buildEnvY) {
+        WallLayout layout = graph.layout();
+        int first = layout.firstBrickAtOrAbove(buildEnvY);
+        int end = first;
+        while (end < layout.size() && layout.y(end) <= buildEnvY + envelopeHeight) {
+            end++;
+        }
+
+        // Ranges are narrowed by the bricks each brick depends on, which always come earlier in the layout. A brick can
+        // only be placed once every brick it depends on can, so the sweep starts from the placeable bricks and only
+        // follows the dependants of bricks that can be placed, without touching the graph.
+        int[] from = new int[end - first];
+        int[] to = new int[end - first];
+        int[] placeableDependencies = new int[end - first];
+        Arrays.fill(from, minX);
+        Arrays.fill(to, maxX);
+        BitSet reachable = new BitSet(end - first);
+        for (OptionalInt id = graph.nextPlaceableBrick(first); id.isPresent() && id.getAsInt() < end; id = graph.nextPlaceableBrick(id.getAsInt() + 1)) {
+            reachable.set(id.getAsInt() - first);
+        }
+        int[] starts = new int[end - first];
+        int[] ends = new int[end - first];
+        int count = 0;
+        for (int i = reachable.nextSetBit(0); i >= 0; i = reachable.nextSetBit(i + 1)) {
+            int id = first + i;
+            from[i] = Math.max(from[i], layout.x(id) - envelopeWidth);
+            to[i] = Math.min(to[i], layout.x(id));
+            if (placeableDependencies[i] < graph.unplacedDependencyCount(id) || from[i] > to[i]) {
+                continue;
+            }
+            for (int dependant : graph.dependants(id)) {
+                if (dependant < end) {
+                    int d = dependant - first;
+                    placeableDependencies[d]++;
+                    from[d] = Math.max(from[d], from[i]);
+                    to[d] = Math.min(to[d], to[i]);
+                    reachable.set(d);
+                }
+            }
+            // Neighbours in a row often share a range, and a repeated range changes no candidate
+            if (count == 0 || starts[count - 1] != from[i] || ends[count - 1] != to[i]) {
+                starts[count] = from[i];
+                ends[count++] = to[i];
+            }
+        }
+        if (count == 0) {
+            return new int[] {minX};
+        }
+        Arrays.sort(starts, 0, count);
+        Arrays.sort(ends, 0, count);
+
+        int[] xs = new int[count];
+        int candidates = 0;
+        int ending = 0;
+        for (int i = 0; i < count; i++) {
+            int nextStart = i + 1 < count ? starts[i + 1] : Integer.MAX_VALUE;
+            if (nextStart == starts[i]) {
+                continue;
+            }
+            while (ending < count && ends[ending] < starts[i]) {
+                ending++;
+            }
+            if (ending < count && ends[ending] < nextStart) {
+                xs[candidates++] = starts[i];
+            }
+        }
+        return Arrays.copyOf(xs, candidates);
+    }
+}
@@ -1,68 +1,88 @@
 package com.monumentaltakehome.wallbuilder.service;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.springframework.stereotype.Service;
 
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
 @Service
 public class FlemishBondService implements WallService {
     
     // For flemish bond this refers to the number of full and half bricks, excluding queen closer bricks
     // Only supports odd numbers
     private static final double BRICKS_PER_ROW = 13;
-    private static final double QUEEN_CLOSER = (FULL_BRICK_WIDTH/2 - HALF_BRICK_WIDTH/2) - HEAD_JOINT;
+    static final int QUEEN_CLOSER_UNITS = (FULL_BRICK_UNITS/2 - HALF_BRICK_UNITS/2) - HEAD_JOINT_UNITS;
+
+    @Override
+    public BondType bondType() {
+        return BondType.FLEMISH;
+    }
 
     @Override
     public double wallWidth() {
         // 2190mm for 13 bricks per row;
-        return BRICKS_PER_ROW * (HALF_BRICK_WIDTH + FULL_BRICK_WIDTH + 2 * HEAD_JOINT) / 2;
+        return wallWidth(BRICKS_PER_ROW);
     }
 
-    @SuppressWarnings("unused")
     @Override
-    public List<PlannedBrick> getNextRow(int rowNumber) {
-        if (BRICKS_PER_ROW % 1 != 0 || BRICKS_PER_ROW % 2 == 0) {
-            throw new IllegalStateException("Brick and joint widths will not fit the wall width!");
+    public double wallWidth(WallGeometry geometry) {
+        return wallWidth(bricksPerRow(geometry));
+    }
+
+    private double wallWidth(double bricksPerRow) {
+        return ((bricksPerRow + 1) * FULL_BRICK_WIDTH + (bricksPerRow - 1) * HALF_BRICK_WIDTH) / 2 + (bricksPerRow - 1) * HEAD_JOINT;
+    }
+
+    // Largest odd number of full and half bricks that fits the wall length, at least three to fit both queen closers
+    private int bricksPerRow(WallGeometry geometry) {
+        int pairWidth = FULL_BRICK_UNITS + HALF_BRICK_UNITS + 2 * HEAD_JOINT_UNITS;
+        int pairs = (geometry.wallLengthUnits() - FULL_BRICK_UNITS) / pairWidth;
+        if (pairs < 1) {
+            throw new IllegalArgumentException("Wall length is too short for a flemish bond!");
         }
-        List<PlannedBrick> row = new ArrayList<>();
-        double y = rowNumber * COURSE_HEIGHT;
+        return 2 * pairs + 1;
+    }
+
+    @Override
+    public void addNextRow(int rowNumber, WallGeometry geometry, WallLayout.Builder layout) {
+        int bricksPerRow = bricksPerRow(geometry);
+        int y = rowNumber * COURSE_HEIGHT_UNITS;
         if (rowNumber % 2 == 0) {
             // Add Half brick and Queen Closer brick to start
-            double x = 0;
-            row.add(new PlannedBrick(x, y, HALF_BRICK_WIDTH, BRICK_HEIGHT));
-            x += HALF_BRICK_WIDTH + HEAD_JOINT;
-            row.add(new PlannedBrick(x, y, QUEEN_CLOSER, BRICK_HEIGHT));
-            x += QUEEN_CLOSER + HEAD_JOINT;
+            int x = 0;
+            layout.addBrick(rowNumber, x, y, HALF_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+            x += HALF_BRICK_UNITS + HEAD_JOINT_UNITS;
+            layout.addBrick(rowNumber, x, y, QUEEN_CLOSER_UNITS, BRICK_HEIGHT_UNITS);
+            x += QUEEN_CLOSER_UNITS + HEAD_JOINT_UNITS;
             // add consecutive full and half bricks
-            for (int i=0; i<BRICKS_PER_ROW-2; i++) {
+            for (int i=0; i<bricksPerRow-2; i++) {
                 if (i % 2 != 0) {
-                    row.add(new PlannedBrick(x, y, HALF_BRICK_WIDTH, BRICK_HEIGHT));
-                    x += HALF_BRICK_WIDTH + HEAD_JOINT;
+                    layout.addBrick(rowNumber, x, y, HALF_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+                    x += HALF_BRICK_UNITS + HEAD_JOINT_UNITS;
                 } else {
-                    row.add(new PlannedBrick(x, y, FULL_BRICK_WIDTH, BRICK_HEIGHT));
-                    x += FULL_BRICK_WIDTH + HEAD_JOINT;
+                    layout.addBrick(rowNumber, x, y, FULL_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+                    x += FULL_BRICK_UNITS + HEAD_JOINT_UNITS;
                 }
             }
             // add Queen Closer and Half brick to finish
-            row.add(new PlannedBrick(x, y, QUEEN_CLOSER, BRICK_HEIGHT));
-            x += QUEEN_CLOSER + HEAD_JOINT;
-            row.add(new PlannedBrick(x, y, HALF_BRICK_WIDTH, BRICK_HEIGHT));
+            layout.addBrick(rowNumber, x, y, QUEEN_CLOSER_UNITS, BRICK_HEIGHT_UNITS);
+            x += QUEEN_CLOSER_UNITS + HEAD_JOINT_UNITS;
+            layout.addBrick(rowNumber, x, y, HALF_BRICK_UNITS, BRICK_HEIGHT_UNITS);
         } else {
             // add consecutive full and half bricks
-            double x = 0;
-            for (int i=0; i<BRICKS_PER_ROW; i++) {
+            int x = 0;
+            for (int i=0; i<bricksPerRow; i++) {
                 if (i % 2 != 0) {
-                    row.add(new PlannedBrick(x, y, HALF_BRICK_WIDTH, BRICK_HEIGHT));
-                    x += HALF_BRICK_WIDTH + HEAD_JOINT;
+                    layout.addBrick(rowNumber, x, y, HALF_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+                    x += HALF_BRICK_UNITS + HEAD_JOINT_UNITS;
                 } else {
-                    row.add(new PlannedBrick(x, y, FULL_BRICK_WIDTH, BRICK_HEIGHT));
-                    x += FULL_BRICK_WIDTH + HEAD_JOINT;
+                    layout.addBrick(rowNumber, x, y, FULL_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+                    x += FULL_BRICK_UNITS + HEAD_JOINT_UNITS;
                 }
             }
             
         }
-        return row;
     }
 
 }
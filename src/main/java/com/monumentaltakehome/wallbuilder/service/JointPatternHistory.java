@@ -0,0 +1,95 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+// Head joint positions of the rows of a wild bond so far, one bit per half brick position, packed into longs.
+// Bit i of a row is set when the row has a joint at position i, so "row[i - k]" for every i is the row shifted
+// left by k and a pattern running up the wall is the AND of the shifted rows below.
+// Rows are stored by height rather than in a ring of the last seven, so a backtracking generator can pop rows
+// and see the older rows again.
+final class JointPatternHistory {
+
+    // Number of rows below the new row that the checks look at
+    static final int ROWS_CHECKED = 6;
+
+    // Offsets of the joints in each row below that continue a pattern through joint i of the new row, for new rows
+    // starting with a three quarter brick and with a half brick. Positive offsets look left, negative look right.
+    private static final int[][] LEFT_STEP_OFFSETS = {{0, 1, 1, 2, 2, 3}, {1, 1, 2, 2, 3, 3}};
+    private static final int[][] RIGHT_STEP_OFFSETS = {{-1, -1, -2, -2, -3, -3}, {0, -1, -1, -2, -2, -3}};
+    private static final int[][] LEFT_TEETH_OFFSETS = {{0, 0, 0, 0, 0, 0}, {1, 0, 1, 0, 1, 0}};
+    private static final int[][] RIGHT_TEETH_OFFSETS = {{-1, 0, -1, 0, -1, 0}, {0, 0, 0, 0, 0, 0}};
+
+    private final int words;
+    private final long[][] rows;
+    // Joint positions excluding the wall edges, which every row has
+    private final long[] interior;
+    private int size;
+
+    JointPatternHistory(int rowCapacity, int jointPositions) {
+        this.words = (jointPositions + 63) >>> 6;
+        this.rows = new long[rowCapacity][words];
+        this.interior = new long[words];
+        for (int i = 1; i < jointPositions - 1; i++) {
+            interior[i >>> 6] |= 1L << i;
+        }
+    }
+
+    int words() {
+        return words;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void push(long[] row) {
+        System.arraycopy(row, 0, rows[size++], 0, words);
+    }
+
+    void pop() {
+        size--;
+    }
+
+    // Exact for rows of up to 64 positions, wider rows are hashed
+    long fingerprint(long[] row) {
+        long fingerprint = row[0];
+        for (int w = 1; w < words; w++) {
+            fingerprint = Long.rotateLeft(fingerprint * 0x9E3779B97F4A7C15L, 31) ^ row[w];
+        }
+        return fingerprint;
+    }
+
+    // Joint positions where a new row would continue a staggered step or falling teeth pattern through the rows below.
+    // The patterns only depend on the rows below, so they are found once per row and a candidate row passes both
+    // checks when it has no joint at any of these positions.
+    void forbiddenJoints(long[] forbidden, boolean staggeredSteps, boolean fallingTeeth) {
+        int parity = size % 2;
+        for (int w = 0; w < words; w++) {
+            long word = 0;
+            if (staggeredSteps && size >= ROWS_CHECKED + 1) {
+                word |= pattern(LEFT_STEP_OFFSETS[parity], w) | pattern(RIGHT_STEP_OFFSETS[parity], w);
+            }
+            if (fallingTeeth && size >= ROWS_CHECKED) {
+                word |= (pattern(LEFT_TEETH_OFFSETS[parity], w) | pattern(RIGHT_TEETH_OFFSETS[parity], w)) & interior[w];
+            }
+            forbidden[w] = word;
+        }
+    }
+
+    // Shifted rows bring in zeros at the edges, so steps running off the wall never match
+    private long pattern(int[] offsets, int w) {
+        long pattern = -1L;
+        for (int j = 0; j < ROWS_CHECKED && pattern != 0; j++) {
+            pattern &= shiftedWord(rows[size - 1 - j], offsets[j], w);
+        }
+        return pattern;
+    }
+
+    // Word w of the row with every bit moved up by shift positions, or down for a negative shift
+    private long shiftedWord(long[] row, int shift, int w) {
+        if (shift > 0) {
+            return row[w] << shift | (w > 0 ? row[w - 1] >>> (64 - shift) : 0);
+        } else if (shift < 0) {
+            return row[w] >>> -shift | (w + 1 < words ? row[w + 1] << (64 + shift) : 0);
+        }
+        return row[w];
+    }
+}
@@ -0,0 +1,25 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
+// Cost of moving the arm from setting down one brick to setting down the next, in layout units. Bricks are set down
+// at their centre. Costs must be symmetric, since StrideSequencer reverses parts of a sequence.
+@FunctionalInterface
+public interface MotionCostModel {
+
+    // Distance between the centres, for an arm that moves in a straight line
+    MotionCostModel STRAIGHT_LINE = (layout, fromId, toId) -> (int) Math.round(Math.hypot(dx(layout, fromId, toId), dy(layout, fromId, toId)));
+
+    // Longer of the horizontal and vertical moves, for a gantry that moves both axes at once
+    MotionCostModel GANTRY = (layout, fromId, toId) -> (int) Math.round(Math.max(Math.abs(dx(layout, fromId, toId)), Math.abs(dy(layout, fromId, toId))));
+
+    int cost(WallLayout layout, int fromId, int toId);
+
+    private static double dx(WallLayout layout, int fromId, int toId) {
+        return layout.x(toId) + layout.width(toId) / 2.0 - layout.x(fromId) - layout.width(fromId) / 2.0;
+    }
+
+    private static double dy(WallLayout layout, int fromId, int toId) {
+        return layout.y(toId) + layout.height(toId) / 2.0 - layout.y(fromId) - layout.height(fromId) / 2.0;
+    }
+}
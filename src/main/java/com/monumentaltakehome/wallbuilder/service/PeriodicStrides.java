@@ -0,0 +1,122 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
+// Remembers the envelope X the greedy search chose for each state of the courses a stride can reach, so that a state met
+// again higher up a tile is translated instead of searched. Stretcher and flemish courses repeat every two rows, so once
+// planning has climbed past the foot of the wall the strides of one vertical period recur in every period above it, and
+// only the courses where the wall's foot, top or the tile's edges clip the pattern are searched.
+// A state is the shape and relative height of each course from the one below the lowest placeable brick up to the
+// envelope's reach, and which of their bricks are placed or blocked. That is everything the candidate search and the
+// stride read, so a translated stride is exactly the stride the search would have chosen.
+final class PeriodicStrides {
+
+    private final BrickDependencyGraph graph;
+    private final BitSet blocked;
+    private final int envelopeHeight;
+    private final int[] rowStarts;
+    private final int[] rowShapes;
+    // Layouts whose courses rarely repeat, like the wild bond, would only fill the map
+    private final boolean repeating;
+    private final Map<State, Integer> buildEnvXs = new HashMap<>();
+    private State current;
+
+    PeriodicStrides(BrickDependencyGraph graph, BitSet blocked, int envelopeHeight) {
+        this.graph = graph;
+        this.blocked = blocked;
+        this.envelopeHeight = envelopeHeight;
+
+        WallLayout layout = graph.layout();
+        this.rowStarts = layout.rowStarts();
+        int rows = layout.rows();
+
+        // Courses are level, so a course's shape is the x and width of its bricks
+        Map<Shape, Integer> shapes = new HashMap<>();
+        this.rowShapes = new int[rows];
+        for (int row = 0; row < rows; row++) {
+            int[] bricks = new int[2 * (rowStarts[row + 1] - rowStarts[row])];
+            for (int id = rowStarts[row], i = 0; id < rowStarts[row + 1]; id++) {
+                bricks[i++] = layout.x(id);
+                bricks[i++] = layout.width(id);
+            }
+            rowShapes[row] = shapes.computeIfAbsent(new Shape(bricks), shape -> shapes.size());
+        }
+        this.repeating = 2 * shapes.size() <= rows;
+    }
+
+    // The X chosen the last time the courses at the lowest placeable brick were in the same state
+    OptionalInt repeatedX() {
+        OptionalInt lowestBrick = graph.lowestPlaceableBrick();
+        current = repeating && lowestBrick.isPresent() ? state(lowestBrick.getAsInt()) : null;
+        Integer buildEnvX = current != null ? buildEnvXs.get(current) : null;
+        return buildEnvX != null ? OptionalInt.of(buildEnvX) : OptionalInt.empty();
+    }
+
+    // Records the X searched for the state of the last call to repeatedX
+    void remember(int buildEnvX) {
+        if (current != null) {
+            buildEnvXs.put(current, buildEnvX);
+        }
+    }
+
+    private State state(int lowestBrick) {
+        WallLayout layout = graph.layout();
+        int lowestRow = rowOf(lowestBrick);
+        int buildEnvY = layout.y(lowestBrick);
+        // The course below holds the only unplaced dependencies of the bricks a stride can reach
+        int firstRow = Math.max(lowestRow - 1, 0);
+        int lastRow = lowestRow;
+        while (lastRow + 1 < rowShapes.length && layout.y(rowStarts[lastRow + 1]) <= buildEnvY + envelopeHeight) {
+            lastRow++;
+        }
+
+        int[] courses = new int[3 * (lastRow - firstRow + 1)];
+        for (int row = firstRow, i = 0; row <= lastRow; row++) {
+            courses[i++] = rowShapes[row];
+            courses[i++] = layout.rowNumber(rowStarts[row]) - layout.rowNumber(lowestBrick);
+            courses[i++] = layout.y(rowStarts[row]) - buildEnvY;
+        }
+        int start = rowStarts[firstRow];
+        int end = rowStarts[lastRow + 1];
+        return new State(courses, graph.placedBetween(start, end), blocked.get(start, end));
+    }
+
+    private int rowOf(int id) {
+        int row = Arrays.binarySearch(rowStarts, id);
+        return row >= 0 ? row : -row - 2;
+    }
+
+    private record Shape(int[] bricks) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Shape shape && Arrays.equals(bricks, shape.bricks);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bricks);
+        }
+    }
+
+    private record State(int[] courses, BitSet placed, BitSet blocked) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof State state && Arrays.equals(courses, state.courses)
+                && placed.equals(state.placed) && blocked.equals(state.blocked);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Arrays.hashCode(courses) + placed.hashCode()) + blocked.hashCode();
+        }
+    }
+}
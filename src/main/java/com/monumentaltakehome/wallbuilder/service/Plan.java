@@ -0,0 +1,7 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.response.WallDto;
+
+// A planned wall together with the bond layout it was planned from, which re-planning starts from
+public record Plan(WallLayout layout, WallDto wall) {}
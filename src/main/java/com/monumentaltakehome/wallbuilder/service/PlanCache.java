@@ -0,0 +1,110 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+// Cache of computed plans with size and age based eviction.
+// Concurrent requests for the same plan share a single computation: the first caller plans the wall and the others wait on its result.
+@Service
+public class PlanCache {
+
+    public static final int MAXIMUM_SIZE = 256;
+    public static final Duration MAXIMUM_AGE = Duration.ofHours(1);
+
+    private final int maximumSize;
+    private final Duration maximumAge;
+    private final Clock clock;
+    private final Map<PlanKey, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PlanCache() {
+        this(MAXIMUM_SIZE, MAXIMUM_AGE, Clock.systemUTC());
+    }
+
+    PlanCache(int maximumSize, Duration maximumAge, Clock clock) {
+        this.maximumSize = maximumSize;
+        this.maximumAge = maximumAge;
+        this.clock = clock;
+    }
+
+    public Plan get(PlanKey key, Supplier<Plan> planner) {
+        Instant now = clock.instant();
+        Entry created = new Entry(new CompletableFuture<>(), now);
+        Entry entry = entries.compute(key, (k, current) -> current != null && !isExpired(current, now) ? current : created);
+
+        if (entry == created) {
+            misses.increment();
+            evictIfFull();
+            try {
+                created.plan().complete(planner.get());
+            } catch (RuntimeException e) {
+                // Failed plans are not cached, but callers already waiting on this one see the failure
+                entries.remove(key, created);
+                created.plan().completeExceptionally(e);
+            }
+        } else {
+            hits.increment();
+        }
+
+        try {
+            return entry.plan().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // Whether the plan is cached or being planned, without counting a hit or miss
+    public boolean contains(PlanKey key) {
+        Entry entry = entries.get(key);
+        return entry != null && !isExpired(entry, clock.instant());
+    }
+
+    public PlanCacheStats stats() {
+        return new PlanCacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private boolean isExpired(Entry entry, Instant now) {
+        return entry.created().plus(maximumAge).isBefore(now);
+    }
+
+    // Drop expired plans, then the oldest completed plans until the cache fits
+    private void evictIfFull() {
+        if (entries.size() <= maximumSize) {
+            return;
+        }
+        Instant now = clock.instant();
+        entries.forEach((key, entry) -> {
+            if (isExpired(entry, now) && entries.remove(key, entry)) {
+                evictions.increment();
+            }
+        });
+        while (entries.size() > maximumSize) {
+            Map.Entry<PlanKey, Entry> oldest = entries.entrySet().stream()
+                .filter(candidate -> candidate.getValue().plan().isDone())
+                .min((a, b) -> a.getValue().created().compareTo(b.getValue().created()))
+                .orElse(null);
+            if (oldest == null) {
+                return;
+            }
+            if (entries.remove(oldest.getKey(), oldest.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public record PlanCacheStats(long hits, long misses, long evictions, int size) {}
+
+    private record Entry(CompletableFuture<Plan> plan, Instant created) {}
+}
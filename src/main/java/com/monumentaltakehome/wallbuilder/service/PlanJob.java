@@ -0,0 +1,70 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// A wall queued on the PlanScheduler, completing its future when a worker has planned it.
+// The job keeps only the wall's key, and its plan is collected from the PlanService, which has it cached or stored by then.
+public final class PlanJob {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private final String id;
+    private final PlanKey key;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private volatile Status status = Status.QUEUED;
+    private volatile String error;
+    private volatile Instant finished;
+
+    PlanJob(String id, PlanKey key) {
+        this.id = id;
+        this.key = key;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public PlanKey key() {
+        return key;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    // Failure message of a failed job, otherwise null
+    public String error() {
+        return error;
+    }
+
+    public CompletableFuture<Void> done() {
+        return done;
+    }
+
+    boolean isFinishedBefore(Instant instant) {
+        return finished != null && finished.isBefore(instant);
+    }
+
+    // Status and finish time are set before the future completes, so anyone woken by it sees them.
+    // Errors fail the job too and are then rethrown, so the job never stays running.
+    void run(Consumer<PlanKey> planner, Clock clock) {
+        status = Status.RUNNING;
+        try {
+            planner.accept(key);
+            finished = clock.instant();
+            status = Status.DONE;
+            done.complete(null);
+        } catch (Throwable e) {
+            finished = clock.instant();
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+            status = Status.FAILED;
+            done.completeExceptionally(e);
+            if (e instanceof Error fatal) {
+                throw fatal;
+            }
+        }
+    }
+}
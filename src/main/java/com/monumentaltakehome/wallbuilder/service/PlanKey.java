@@ -0,0 +1,44 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.math.BigDecimal;
+
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+
+// Identifies a reproducible plan, the seed is only used by the wild bond.
+// The id spells out the key, e.g. "wild_2240_2000_800_1300_42", so a plan can be rebuilt from its id alone.
+public record PlanKey(BondType bondType, WallGeometry geometry, Long seed) {
+
+    private static final String SEPARATOR = "_";
+
+    public PlanKey {
+        if (bondType == BondType.WILD && seed == null) {
+            throw new IllegalArgumentException("A wild bond plan needs a seed");
+        }
+        if (bondType != BondType.WILD) {
+            seed = null;
+        }
+    }
+
+    public String id() {
+        String id = String.join(SEPARATOR, bondType.name().toLowerCase(), format(geometry.wallLength()), format(geometry.wallHeight()),
+            format(geometry.envelopeWidth()), format(geometry.envelopeHeight()));
+        return seed != null ? id + SEPARATOR + seed : id;
+    }
+
+    // Throws IllegalArgumentException for ids that do not describe a plan
+    public static PlanKey fromId(String id) {
+        String[] parts = id.split(SEPARATOR);
+        if (parts.length != 5 && parts.length != 6) {
+            throw new IllegalArgumentException(String.format("Invalid plan id: %s", id));
+        }
+        BondType bondType = BondType.valueOf(parts[0].toUpperCase());
+        WallGeometry geometry = new WallGeometry(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+            Double.parseDouble(parts[3]), Double.parseDouble(parts[4]));
+        return new PlanKey(bondType, geometry, parts.length == 6 ? Long.parseLong(parts[5]) : null);
+    }
+
+    private static String format(double millimetres) {
+        return BigDecimal.valueOf(millimetres).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,109 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+
+// Timings of the planning phases and counts from the wild bond generator, tagged by bond type.
+// Meters live in Micrometer's global registry, which Spring Boot adds its registries to, so services created with new
+// record into the same meters. Every meter is recorded at most once per stride or once per wall, never per brick or candidate.
+public final class PlanMetrics {
+
+    private static final Map<BondType, PlanMetrics> METRICS = new EnumMap<>(BondType.class);
+
+    static {
+        for (BondType bondType : BondType.values()) {
+            METRICS.put(bondType, new PlanMetrics(Metrics.globalRegistry, bondType));
+        }
+    }
+
+    // Laying out the bond, before planning
+    final Timer bondLayout;
+    // Finding the lowest placeable course for the next stride
+    final Timer minYSearch;
+    // Finding the envelope X that places the most bricks
+    final Timer candidateSearch;
+    // Searching a tile for fewer strides, only when planning with a search budget
+    final Timer strideSearch;
+    // A whole stride, from the min-Y search to placing its bricks
+    final Timer stride;
+    // Ordering a stride's bricks for arm travel
+    final Timer sequencing;
+    // Turning a stride's bricks into DTOs
+    final Timer dtoMapping;
+    final DistributionSummary stridesPerWall;
+    final DistributionSummary bricksPerStride;
+    final Counter stridesSaved;
+    final Counter repeatedStrides;
+    final Counter travelSaved;
+
+    // Wild bond generation only, null for the other bonds
+    final Counter rowsDrawn;
+    final Counter repeatedRows;
+    final Counter backtracks;
+    final Counter backjumps;
+    final Counter failedBonds;
+
+    PlanMetrics(MeterRegistry registry, BondType bondType) {
+        String bond = bondType.name().toLowerCase();
+        this.bondLayout = phaseTimer(registry, bond, "bond-layout");
+        this.minYSearch = phaseTimer(registry, bond, "min-y-search");
+        this.candidateSearch = phaseTimer(registry, bond, "candidate-search");
+        this.strideSearch = phaseTimer(registry, bond, "stride-search");
+        this.stride = phaseTimer(registry, bond, "stride");
+        this.sequencing = phaseTimer(registry, bond, "sequencing");
+        this.dtoMapping = phaseTimer(registry, bond, "dto-mapping");
+        this.stridesPerWall = DistributionSummary.builder("wallbuilder.plan.strides")
+            .description("Strides per planned wall").tag("bond", bond).register(registry);
+        this.bricksPerStride = DistributionSummary.builder("wallbuilder.plan.stride.bricks")
+            .description("Bricks placed per stride").tag("bond", bond).register(registry);
+        this.stridesSaved = Counter.builder("wallbuilder.plan.strides.saved")
+            .description("Strides saved over greedy planning by searched plans").tag("bond", bond).register(registry);
+        this.repeatedStrides = Counter.builder("wallbuilder.plan.strides.repeated")
+            .description("Greedy strides translated from a repeat of the bond pattern instead of searched").tag("bond", bond).register(registry);
+        this.travelSaved = Counter.builder("wallbuilder.plan.travel.saved").baseUnit("millimetres")
+            .description("Estimated arm travel saved by sequencing the bricks of each stride").tag("bond", bond).register(registry);
+
+        if (bondType == BondType.WILD) {
+            this.rowsDrawn = Counter.builder("wallbuilder.wild.rows.drawn")
+                .description("Candidate rows drawn by the wild bond generator").tag("bond", bond).register(registry);
+            this.repeatedRows = Counter.builder("wallbuilder.wild.rows.repeated")
+                .description("Drawn rows discarded because they had already been tried at that height").tag("bond", bond).register(registry);
+            this.backtracks = Counter.builder("wallbuilder.wild.backtracks")
+                .description("Dead ends where no valid row fitted and rows below were discarded").tag("bond", bond).register(registry);
+            this.backjumps = Counter.builder("wallbuilder.wild.backjumps")
+                .description("Backtracks that jumped back past the rows the joint pattern checks see").tag("bond", bond).register(registry);
+            this.failedBonds = Counter.builder("wallbuilder.wild.failures")
+                .description("Wild bonds abandoned with FailedBondGenerationException").tag("bond", bond).register(registry);
+        } else {
+            this.rowsDrawn = null;
+            this.repeatedRows = null;
+            this.backtracks = null;
+            this.backjumps = null;
+            this.failedBonds = null;
+        }
+    }
+
+    public static PlanMetrics of(BondType bondType) {
+        return METRICS.get(bondType);
+    }
+
+    static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer phaseTimer(MeterRegistry registry, String bond, String phase) {
+        return Timer.builder("wallbuilder.plan.phase")
+            .description("Time spent in each planning phase")
+            .tags("bond", bond, "phase", phase)
+            .register(registry);
+    }
+}
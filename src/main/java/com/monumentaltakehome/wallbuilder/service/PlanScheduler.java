@@ -0,0 +1,167 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+// Plans batches of walls in the background on a fixed pool of platform threads, one wall per job.
+// Planning is CPU bound, so the pool is sized to the cores less one that is left for interactive requests, which never queue here.
+// Queued jobs are taken from the submitted batches in turn, so a small batch is not stuck behind a large one, and a full
+// queue rejects new batches rather than growing without bound. Finished jobs are kept for a while for clients to collect,
+// up to a fixed number of them, and hold only their wall's key, as their plan is kept in the PlanStore.
+@Service
+public class PlanScheduler {
+
+    public static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    public static final int MAXIMUM_QUEUED_JOBS = 4096;
+    // Finished jobs are kept this long for clients to collect, the oldest going first past the maximum
+    public static final Duration JOB_RETENTION = Duration.ofHours(1);
+    public static final int MAXIMUM_RETAINED_JOBS = 65536;
+
+    @Autowired
+    private PlanService planService;
+
+    private final Consumer<PlanKey> planner;
+    private final int workers;
+    private final int maximumQueuedJobs;
+    private final int maximumRetainedJobs;
+    private final Duration jobRetention;
+    private final Clock clock;
+    private final ExecutorService workerPool;
+    private final Map<String, PlanJob> jobs = new ConcurrentHashMap<>();
+
+    // Finished jobs in the order they finished, for expiring them from the oldest
+    private final Queue<PlanJob> finishedJobs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger retainedJobs = new AtomicInteger();
+
+    // Batches with queued jobs, in the order they take their next turn
+    private final Deque<Deque<PlanJob>> queuedBatches = new ArrayDeque<>();
+    private int queuedJobs;
+    private final AtomicInteger runningJobs = new AtomicInteger();
+    private final LongAdder completedJobs = new LongAdder();
+    private final LongAdder failedJobs = new LongAdder();
+
+    public PlanScheduler() {
+        this(null, WORKERS, MAXIMUM_QUEUED_JOBS, MAXIMUM_RETAINED_JOBS, JOB_RETENTION, Clock.systemUTC());
+    }
+
+    PlanScheduler(Consumer<PlanKey> planner, int workers, int maximumQueuedJobs, int maximumRetainedJobs, Duration jobRetention, Clock clock) {
+        this.planner = planner != null ? planner : key -> planService.storePlan(key);
+        this.workers = workers;
+        this.maximumQueuedJobs = maximumQueuedJobs;
+        this.maximumRetainedJobs = maximumRetainedJobs;
+        this.jobRetention = jobRetention;
+        this.clock = clock;
+        this.workerPool = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("plan-worker-", 1).daemon().factory());
+    }
+
+    // Queues the walls as one batch and returns their jobs in the same order
+    public List<PlanJob> submit(List<PlanKey> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("A batch needs at least one wall");
+        }
+        if (keys.size() > maximumQueuedJobs) {
+            throw new IllegalArgumentException(String.format("A batch can have at most %s walls", maximumQueuedJobs));
+        }
+        removeExpiredJobs();
+
+        Deque<PlanJob> batch = new ArrayDeque<>(keys.size());
+        List<PlanJob> submitted = new ArrayList<>(keys.size());
+        for (PlanKey key : keys) {
+            PlanJob job = new PlanJob(UUID.randomUUID().toString(), key);
+            batch.add(job);
+            submitted.add(job);
+        }
+        synchronized (queuedBatches) {
+            if (queuedJobs + keys.size() > maximumQueuedJobs) {
+                throw new RejectedExecutionException(String.format("Plan queue is full, %s of %s jobs queued", queuedJobs, maximumQueuedJobs));
+            }
+            queuedBatches.add(batch);
+            queuedJobs += keys.size();
+        }
+        submitted.forEach(job -> jobs.put(job.id(), job));
+        // Each task runs whichever job is next in turn when a worker picks it up, not a particular job
+        for (int i = 0; i < keys.size(); i++) {
+            workerPool.execute(this::runNextJob);
+        }
+        return submitted;
+    }
+
+    public Optional<PlanJob> job(String id) {
+        removeExpiredJobs();
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public PlanSchedulerStats stats() {
+        synchronized (queuedBatches) {
+            return new PlanSchedulerStats(workers, queuedJobs, runningJobs.get(), completedJobs.sum(), failedJobs.sum());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
+    }
+
+    private void runNextJob() {
+        PlanJob job = nextJob();
+        runningJobs.incrementAndGet();
+        try {
+            job.run(planner, clock);
+        } finally {
+            runningJobs.decrementAndGet();
+            (job.status() == PlanJob.Status.DONE ? completedJobs : failedJobs).increment();
+            finishedJobs.add(job);
+            retainedJobs.incrementAndGet();
+            removeExpiredJobs();
+        }
+    }
+
+    // Round robin over the queued batches
+    private PlanJob nextJob() {
+        synchronized (queuedBatches) {
+            Deque<PlanJob> batch = queuedBatches.poll();
+            PlanJob job = batch.poll();
+            if (!batch.isEmpty()) {
+                queuedBatches.add(batch);
+            }
+            queuedJobs--;
+            return job;
+        }
+    }
+
+    // Jobs finish in order of their finish times, so the expired ones are always at the head of the queue
+    private void removeExpiredJobs() {
+        Instant expiry = clock.instant().minus(jobRetention);
+        for (PlanJob oldest = finishedJobs.peek(); oldest != null && (retainedJobs.get() > maximumRetainedJobs || oldest.isFinishedBefore(expiry));
+                oldest = finishedJobs.peek()) {
+            if (finishedJobs.remove(oldest)) {
+                retainedJobs.decrementAndGet();
+                jobs.remove(oldest.id());
+            }
+        }
+    }
+
+    public record PlanSchedulerStats(int workers, int queuedJobs, int runningJobs, long completedJobs, long failedJobs) {}
+}
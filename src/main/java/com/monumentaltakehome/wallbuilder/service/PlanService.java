@@ -0,0 +1,295 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.BuildTimings;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.request.ReplanRequest.BrickPosition;
+import com.monumentaltakehome.wallbuilder.request.WallRequest;
+import com.monumentaltakehome.wallbuilder.response.BrickDto;
+import com.monumentaltakehome.wallbuilder.response.RobotPlanDto;
+import com.monumentaltakehome.wallbuilder.response.StrideDto;
+import com.monumentaltakehome.wallbuilder.response.TimelineStepDto;
+import com.monumentaltakehome.wallbuilder.response.WallDto;
+import com.monumentaltakehome.wallbuilder.response.WallPlanCodec;
+import com.monumentaltakehome.wallbuilder.response.ZonePlanDto;
+import com.monumentaltakehome.wallbuilder.service.BuildSimulator.Simulation;
+import com.monumentaltakehome.wallbuilder.service.WallService.Stride;
+import com.monumentaltakehome.wallbuilder.service.ZonePlanner.RobotStride;
+
+@Service
+public class PlanService {
+
+    public static final Duration MAXIMUM_SEARCH_BUDGET = Duration.ofSeconds(10);
+    public static final int MAXIMUM_ROBOTS = 8;
+    // Random seeded plan ids remembered until they are used again, the oldest being forgotten first
+    public static final int MAXIMUM_UNCONFIRMED_PLANS = 65536;
+
+    @Autowired
+    private StretcherBondService stretcherBondService;
+
+    @Autowired
+    private FlemishBondService flemishBondService;
+
+    @Autowired
+    private WildBondService wildBondService;
+
+    @Autowired
+    private PlanCache planCache;
+
+    @Autowired
+    private PlanStore planStore;
+
+    @Autowired
+    private WildBondPortfolio wildBondPortfolio;
+
+    // Ids of wild bonds given a random seed, which are cached but only stored once a client uses their id again
+    private final Set<String> unconfirmedPlanIds = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAXIMUM_UNCONFIRMED_PLANS;
+        }
+    }));
+
+    public PlanService() {
+    }
+
+    PlanService(PlanCache planCache, PlanStore planStore, WildBondPortfolio wildBondPortfolio) {
+        this.stretcherBondService = new StretcherBondService();
+        this.flemishBondService = new FlemishBondService();
+        this.wildBondService = new WildBondService();
+        this.planCache = planCache;
+        this.planStore = planStore;
+        this.wildBondPortfolio = wildBondPortfolio;
+    }
+
+    public WallService wallService(BondType bondType) {
+        return switch (bondType) {
+            case STRETCHER -> stretcherBondService;
+            case FLEMISH -> flemishBondService;
+            case WILD -> wildBondService;
+        };
+    }
+
+    // Wild bonds requested without a seed are given a random one, so that every plan can be found again by its id
+    public PlanKey planKey(BondType bondType, WallRequest request) {
+        WallGeometry geometry = request.toGeometry(wallService(bondType).defaultGeometry());
+        if (bondType == BondType.WILD && request.seed() == null) {
+            PlanKey key = new PlanKey(bondType, geometry, ThreadLocalRandom.current().nextLong());
+            unconfirmedPlanIds.add(key.id());
+            return key;
+        }
+        return new PlanKey(bondType, geometry, request.seed());
+    }
+
+    // The key of a plan id that this service has issued: a random seeded id it still remembers, which is stored now that
+    // it is used again, or the id of a cached or stored plan. Other ids were never issued, or their plans have expired.
+    public PlanKey issuedPlanKey(String planId) {
+        PlanKey key = PlanKey.fromId(planId);
+        if (unconfirmedPlanIds.remove(key.id())) {
+            planStore.put(key.id(), WallPlanCodec.encode(plan(key).wall()));
+            return key;
+        }
+        if (planCache.contains(key) || planStore.get(key.id()).isPresent()) {
+            return key;
+        }
+        throw new NoSuchElementException(String.format("Unknown plan id: %s", key.id()));
+    }
+
+    // Plans and stores a plan whatever its id, for batch jobs whose clients collect the plan by job id rather than plan id
+    public void storePlan(PlanKey key) {
+        unconfirmedPlanIds.remove(key.id());
+        planStore.put(key.id(), WallPlanCodec.encode(plan(key).wall()));
+    }
+
+    public WallDto getPlan(PlanKey key) {
+        return plan(key).wall();
+    }
+
+    // The plan in the binary format of WallPlanCodec. Stored plans are served straight from the store's mapped
+    // segments, without going through the cache or being decoded.
+    public ByteBuffer getEncodedPlan(PlanKey key) {
+        return planStore.get(key.id()).orElseGet(() -> ByteBuffer.wrap(WallPlanCodec.encode(plan(key).wall())));
+    }
+
+    // Streamed plans are not collected, so they bypass the cache and only ever hold one stride
+    public void streamPlan(PlanKey key, Consumer<StrideDto> strideConsumer) {
+        wallService(key.bondType()).planWall(planLayout(key), key.geometry(), strideConsumer);
+    }
+
+    // Searched plans depend on how far the search got before its deadline, so they bypass the cache.
+    // They have no plan id either, so a random seed's id is forgotten rather than left waiting to be used again.
+    public SearchedPlan searchPlan(PlanKey key, Duration searchBudget) {
+        unconfirmedPlanIds.remove(key.id());
+        if (searchBudget.isNegative() || searchBudget.isZero() || searchBudget.compareTo(MAXIMUM_SEARCH_BUDGET) > 0) {
+            throw new IllegalArgumentException(String.format("Search budget must be between 1 and %s ms", MAXIMUM_SEARCH_BUDGET.toMillis()));
+        }
+        List<BrickDto> brickDtos = new ArrayList<>();
+        int stridesSaved = wallService(key.bondType()).planWall(planLayout(key), key.geometry(), new BitSet(), searchBudget,
+            stride -> brickDtos.addAll(stride.bricks()));
+        return new SearchedPlan(new WallDto(brickDtos), stridesSaved);
+    }
+
+    // Plans the bricks of a plan that are not placed yet, starting from the plan's cached layout.
+    // Placed bricks are identified by the position of their bottom left corner in millimetres.
+    public WallDto replan(PlanKey key, List<BrickPosition> placedBricks) {
+        WallLayout layout = plan(key).layout();
+        BitSet alreadyPlaced = new BitSet(layout.size());
+        for (BrickPosition brick : placedBricks) {
+            int id = layout.indexOf(WallLayout.toUnits(brick.x()), WallLayout.toUnits(brick.y()));
+            if (id < 0) {
+                throw new IllegalArgumentException(String.format("There is no brick at x: %s, y: %s", brick.x(), brick.y()));
+            }
+            alreadyPlaced.set(id);
+        }
+        return wallService(key.bondType()).planWall(layout, key.geometry(), alreadyPlaced);
+    }
+
+    // Plans the wall of a plan for several robots building at the same time, with at least the clearance in
+    // millimetres between the envelopes of strides that run together. The zones are planned over the plan's layout, but
+    // like searched plans they are not cached themselves.
+    public ZonePlanDto planZones(PlanKey key, int robots, double clearance) {
+        return planZones(key, plan(key).layout(), robots, clearance);
+    }
+
+    // Plans a portfolio of wild bonds drawn from the key's seed and keeps the one that builds fastest under the timings.
+    // The best wall is cached and stored under its own seed's plan id, so it can be fetched and re-planned like any other.
+    // A portfolio drawn from a random seed is not stored until the best wall's id is used again, like the random seed's own.
+    public PortfolioPlan portfolioPlan(PlanKey key, int candidates, int parallelism, Duration deadline, BuildTimings timings) {
+        if (key.bondType() != BondType.WILD) {
+            throw new IllegalArgumentException("Only wild bonds are planned as a portfolio");
+        }
+        if (candidates < 1 || candidates > WildBondPortfolio.MAXIMUM_CANDIDATES) {
+            throw new IllegalArgumentException(String.format("Candidates must be between 1 and %s", WildBondPortfolio.MAXIMUM_CANDIDATES));
+        }
+        if (parallelism < 1 || parallelism > WildBondPortfolio.WORKERS) {
+            throw new IllegalArgumentException(String.format("Parallelism must be between 1 and %s", WildBondPortfolio.WORKERS));
+        }
+        if (deadline.isNegative() || deadline.isZero() || deadline.compareTo(MAXIMUM_SEARCH_BUDGET) > 0) {
+            throw new IllegalArgumentException(String.format("Deadline must be between 1 and %s ms", MAXIMUM_SEARCH_BUDGET.toMillis()));
+        }
+        WildBondPortfolio.Portfolio portfolio = wildBondPortfolio.plan(key.geometry(), key.seed(), candidates, parallelism, deadline, timings);
+        PlanKey bestKey = new PlanKey(BondType.WILD, key.geometry(), portfolio.candidates().get(0).seed());
+        if (unconfirmedPlanIds.contains(key.id()) && planStore.get(bestKey.id()).isEmpty()) {
+            unconfirmedPlanIds.add(bestKey.id());
+        }
+        Plan plan = planCache.get(bestKey, () -> {
+            store(bestKey, portfolio.best().wall());
+            return portfolio.best();
+        });
+        return new PortfolioPlan(bestKey.id(), plan.wall(), portfolio.candidates());
+    }
+
+    // Simulates building a plan with one robot, or with the given number of robots splitting it like planZones
+    public Simulation simulate(PlanKey key, BuildTimings timings, Integer robots, double clearance) {
+        WallService wallService = wallService(key.bondType());
+        if (robots == null) {
+            Plan plan = plan(key);
+            return wallService.simulateBuild(plan.layout(), BuildSimulator.robotStrides(plan.layout(), plan.wall().bricks()), timings);
+        }
+
+        List<RobotStride> strides = new ArrayList<>();
+        WallLayout layout = plan(key).layout();
+        ZonePlanDto zonePlan = planZones(key, layout, robots, clearance);
+        Map<Integer, Integer> steps = new HashMap<>();
+        for (TimelineStepDto step : zonePlan.timeline()) {
+            step.strideIndices().forEach(strideIndex -> steps.put(strideIndex, step.step()));
+        }
+        for (RobotPlanDto robotPlan : zonePlan.robots()) {
+            for (StrideDto stride : robotPlan.strides()) {
+                strides.add(new RobotStride(robotPlan.robot(), steps.get(stride.strideIndex()),
+                    new Stride(stride.strideIndex(), BuildSimulator.brickIds(layout, stride.bricks()))));
+            }
+        }
+        return wallService.simulateBuild(layout, strides, timings);
+    }
+
+    private ZonePlanDto planZones(PlanKey key, WallLayout layout, int robots, double clearance) {
+        if (robots < 1 || robots > MAXIMUM_ROBOTS) {
+            throw new IllegalArgumentException(String.format("Robots must be between 1 and %s", MAXIMUM_ROBOTS));
+        }
+        if (clearance < 0) {
+            throw new IllegalArgumentException("Clearance must not be negative");
+        }
+        return wallService(key.bondType()).planZones(layout, key.geometry(), robots, clearance);
+    }
+
+    // Plans are looked up in the cache, then in the store, and only planned when they are in neither.
+    // Unconfirmed random seeded plans are only cached.
+    private Plan plan(PlanKey key) {
+        return planCache.get(key, () -> {
+            Optional<ByteBuffer> stored = planStore.get(key.id());
+            if (stored.isPresent()) {
+                WallDto wall = WallPlanCodec.decode(stored.get());
+                return new Plan(layoutOf(wall), wall);
+            }
+            WallLayout layout = getWallLayout(key);
+            WallDto wall = wallService(key.bondType()).planWall(layout, key.geometry());
+            store(key, wall);
+            return new Plan(layout, wall);
+        });
+    }
+
+    private void store(PlanKey key, WallDto wall) {
+        if (!unconfirmedPlanIds.contains(key.id())) {
+            planStore.put(key.id(), WallPlanCodec.encode(wall));
+        }
+    }
+
+    // The layout of a cached or stored plan, which keeps its wall if the bond has changed since, and otherwise a new
+    // layout that is not planned in full
+    private WallLayout planLayout(PlanKey key) {
+        if (planCache.contains(key) || planStore.get(key.id()).isPresent()) {
+            return plan(key).layout();
+        }
+        return getWallLayout(key);
+    }
+
+    // A plan places every brick of its wall, so a stored plan's layout is rebuilt from its bricks rather than laid out
+    // again, which would no longer match the stored wall if the bond has changed since it was planned
+    static WallLayout layoutOf(WallDto wall) {
+        List<BrickDto> bricks = wall.bricks().stream()
+            .sorted(Comparator.comparingDouble(BrickDto::y).thenComparingDouble(BrickDto::x))
+            .toList();
+        WallLayout.Builder layout = new WallLayout.Builder();
+        int rowNumber = 0;
+        for (int i = 0; i < bricks.size(); i++) {
+            BrickDto brick = bricks.get(i);
+            if (i == 0 || brick.y() != bricks.get(i - 1).y()) {
+                rowNumber++;
+            }
+            layout.addBrick(rowNumber, WallLayout.toUnits(brick.x()), WallLayout.toUnits(brick.y()), WallLayout.toUnits(brick.width()),
+                WallLayout.toUnits(brick.height()));
+        }
+        return layout.build();
+    }
+
+    private WallLayout getWallLayout(PlanKey key) {
+        long start = System.nanoTime();
+        WallLayout layout = key.bondType() == BondType.WILD
+            ? wildBondService.getWallLayout(key.geometry(), new Random(key.seed()))
+            : wallService(key.bondType()).getWallLayout(key.geometry());
+        PlanMetrics.record(PlanMetrics.of(key.bondType()).bondLayout, start);
+        return layout;
+    }
+}
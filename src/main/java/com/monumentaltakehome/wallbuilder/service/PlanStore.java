@@ -0,0 +1,407 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PreDestroy;
+
+// Append-only store of computed plans on local disk, so a restart serves the same walls without planning them again.
+// Plans are kept encoded with WallPlanCodec under their plan id, which spells out the bond, wall size and seed, in
+// memory-mapped segment files. An in-memory index points at each plan's bytes, and reads return a read-only view of
+// the mapped segment, so a stored plan is never copied or decoded to be served in the binary format.
+// Layout of a segment: "WPS1", then records of
+//   record length, CRC32C of the rest of the record, id length, id in ASCII, encoded plan
+// The record length is written last, so a record torn by a crash reads as a zero length or fails its checksum. On
+// startup every segment is scanned up to its first invalid record, which ends it, and segments that are mostly garbage
+// are compacted by copying their live plans to the end of the store. The store is kept under a maximum size by deleting
+// its oldest segments, and the plans in them, when a new segment would not fit.
+// Plans are written and forced to disk by a single writer thread, so requests never wait on the disk. Until its record
+// is written a plan is served from the bytes it was put with.
+@Service
+public final class PlanStore {
+
+    public static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final int MAGIC = 0x57505331;
+    private static final int SEGMENT_HEADER = 4;
+    private static final int RECORD_HEADER = 10;
+    private static final String SEGMENT_SUFFIX = ".plans";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maximumSize;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> pending = new ConcurrentHashMap<>();
+    // Guards the segments, which request threads running on virtual threads must not pin their carrier for
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("plan-store-writer").daemon().factory());
+    private long droppedPlans;
+    private long failedWrites;
+
+    @Autowired
+    public PlanStore(@Value("${wallbuilder.plan-store.directory}") Path directory,
+            @Value("${wallbuilder.plan-store.maximum-size}") DataSize maximumSize) {
+        this(directory, SEGMENT_SIZE, maximumSize.toBytes());
+    }
+
+    PlanStore(Path directory, int segmentSize) {
+        this(directory, segmentSize, Long.MAX_VALUE);
+    }
+
+    PlanStore(Path directory, int segmentSize, long maximumSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maximumSize = maximumSize;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                List<Path> segmentFiles = files.filter(file -> file.toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+                for (int i = 0; i < segmentFiles.size(); i++) {
+                    recover(segmentFiles.get(i), i == segmentFiles.size() - 1);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dropOldestSegments(0);
+        compact();
+    }
+
+    // Read-only view of the encoded plan, positioned at its first byte
+    public Optional<ByteBuffer> get(String id) {
+        Location location = index.get(id);
+        if (location != null) {
+            return Optional.of(location.plan());
+        }
+        byte[] plan = pending.get(id);
+        return plan != null ? Optional.of(ByteBuffer.wrap(plan).asReadOnlyBuffer()) : Optional.empty();
+    }
+
+    // Stores a plan that is not stored yet. Stored plans are never replaced, so a plan keeps its first wall.
+    // A plan that cannot be written is only planned again after a restart, so the failure is counted rather than thrown.
+    public void put(String id, byte[] plan) {
+        if (index.containsKey(id) || pending.putIfAbsent(id, plan) != null) {
+            return;
+        }
+        try {
+            writer.execute(() -> write(id, plan));
+        } catch (RejectedExecutionException e) {
+            // The store is closing
+            pending.remove(id);
+            countFailedWrite();
+        }
+    }
+
+    // Copies the live plans out of segments that are more than half garbage and deletes those segments.
+    // A crash part way leaves the plans in both segments, and the copy is the one indexed on recovery.
+    public void compact() {
+        lock.lock();
+        try {
+            for (Segment segment : List.copyOf(segments)) {
+                // Segments are dropped by copies that start a new segment past the maximum size
+                if (!segments.contains(segment) || segment == activeSegment() || segment.garbage() <= segment.capacity() / 2) {
+                    continue;
+                }
+                List<Map.Entry<String, Location>> live = index.entrySet().stream()
+                    .filter(entry -> entry.getValue().segment() == segment)
+                    .toList();
+                for (Map.Entry<String, Location> entry : live) {
+                    append(entry.getKey(), entry.getValue().plan());
+                }
+                segments.remove(segment);
+                delete(segment);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Garbage only counts the bytes of full segments that are not in a live record, and plans waiting to be written
+    // are not counted yet
+    public PlanStoreStats stats() {
+        lock.lock();
+        try {
+            long garbage = segments.stream().filter(segment -> segment != activeSegment()).mapToLong(Segment::garbage).sum();
+            return new PlanStoreStats(index.size(), segments.size(), bytes(), garbage, droppedPlans, failedWrites);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Waits for the plans put so far to be written
+    void flush() {
+        try {
+            writer.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            // Nothing is left to write once the store is closed
+        }
+    }
+
+    // Writes the plans still waiting before forcing every segment to disk
+    @PreDestroy
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            segments.forEach(segment -> segment.buffer().force());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Runs on the writer thread. The plan stays pending until it is indexed, so readers always find it.
+    private void write(String id, byte[] plan) {
+        lock.lock();
+        try {
+            if (!index.containsKey(id)) {
+                append(id, ByteBuffer.wrap(plan));
+            }
+        } catch (UncheckedIOException e) {
+            failedWrites++;
+        } finally {
+            pending.remove(id);
+            lock.unlock();
+        }
+    }
+
+    private void countFailedWrite() {
+        lock.lock();
+        try {
+            failedWrites++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(String id, ByteBuffer plan) {
+        byte[] idBytes = id.getBytes(StandardCharsets.US_ASCII);
+        int length = RECORD_HEADER - 4 + idBytes.length + plan.remaining();
+        Segment segment = activeSegment();
+        if (segment == null || segment.position() + 4 + length > segment.capacity()) {
+            segment = createSegment(SEGMENT_HEADER + 4 + length);
+        }
+
+        MappedByteBuffer buffer = segment.buffer();
+        int offset = segment.position();
+        buffer.putShort(offset + RECORD_HEADER - 2, (short) idBytes.length);
+        buffer.put(offset + RECORD_HEADER, idBytes);
+        buffer.put(offset + RECORD_HEADER + idBytes.length, plan, plan.position(), plan.remaining());
+        buffer.putInt(offset + 4, checksum(buffer, offset, length));
+        buffer.force(offset + 4, length);
+        buffer.putInt(offset, length);
+        buffer.force(offset, 4);
+        segment.position(offset + 4 + length);
+
+        index(id, new Location(segment, offset + RECORD_HEADER + idBytes.length, plan.remaining(), 4 + length));
+    }
+
+    // Indexes the valid records of a segment, and ends the segment at the first one that is not
+    private void recover(Path file, boolean last) throws IOException {
+        Segment segment = mapSegment(file, 0);
+        MappedByteBuffer buffer = segment.buffer();
+        // Left by a crash while the segment was created, before any record was written to it
+        if (segment.capacity() < SEGMENT_HEADER || buffer.getInt(0) != MAGIC) {
+            Files.delete(file);
+            return;
+        }
+        int offset = SEGMENT_HEADER;
+        while (offset + RECORD_HEADER <= segment.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length < RECORD_HEADER - 4 || length > segment.capacity() - offset - 4
+                    || buffer.getInt(offset + 4) != checksum(buffer, offset, length)) {
+                break;
+            }
+            int idLength = Short.toUnsignedInt(buffer.getShort(offset + RECORD_HEADER - 2));
+            if (idLength > length - RECORD_HEADER + 4) {
+                break;
+            }
+            byte[] id = new byte[idLength];
+            buffer.get(offset + RECORD_HEADER, id);
+            int planOffset = offset + RECORD_HEADER + idLength;
+            index(new String(id, StandardCharsets.US_ASCII), new Location(segment, planOffset, offset + 4 + length - planOffset, 4 + length));
+            offset += 4 + length;
+        }
+        if (offset + 4 <= segment.capacity() && buffer.getInt(offset) != 0) {
+            if (last) {
+                // A torn record at the end of the store would be read as part of the next record appended over it
+                for (int i = offset; i < segment.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.force();
+            } else {
+                // Nothing is appended to a full segment again, so the records from the torn one on are garbage
+                offset = segment.capacity();
+            }
+        }
+        segment.position(offset);
+        segments.add(segment);
+    }
+
+    // Plans recovered or copied later replace earlier records of the same id
+    private void index(String id, Location location) {
+        location.segment().addLive(location.recordLength());
+        Location previous = index.put(id, location);
+        if (previous != null) {
+            previous.segment().addLive(-previous.recordLength());
+        }
+    }
+
+    private Segment activeSegment() {
+        return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+
+    private Segment createSegment(int minimumSize) {
+        long number = segments.isEmpty() ? 1 : Long.parseLong(fileName(activeSegment().file())) + 1;
+        Path file = directory.resolve(String.format("%016d%s", number, SEGMENT_SUFFIX));
+        int size = Math.max(segmentSize, minimumSize);
+        dropOldestSegments(size);
+        try {
+            Segment segment = mapSegment(file, size);
+            segment.buffer().putInt(0, MAGIC);
+            segment.buffer().force(0, SEGMENT_HEADER);
+            segment.position(SEGMENT_HEADER);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Deletes the oldest segments and their plans until the store and the bytes to add fit the maximum size.
+    // Readers of a dropped plan keep their view, as the file stays mapped until its buffer is collected.
+    private void dropOldestSegments(long bytesToAdd) {
+        long bytes = bytes();
+        while (!segments.isEmpty() && bytes + bytesToAdd > maximumSize) {
+            Segment oldest = segments.remove(0);
+            bytes -= oldest.capacity();
+            List<String> ids = index.entrySet().stream()
+                .filter(entry -> entry.getValue().segment() == oldest)
+                .map(Map.Entry::getKey)
+                .toList();
+            ids.forEach(index::remove);
+            droppedPlans += ids.size();
+            delete(oldest);
+        }
+    }
+
+    private long bytes() {
+        return segments.stream().mapToLong(Segment::capacity).sum();
+    }
+
+    private static void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.file());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Maps the whole file, growing it to the size given first
+    private static Segment mapSegment(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long capacity = Math.max(size, channel.size());
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Plan store segment %s is too large", file));
+            }
+            return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        }
+    }
+
+    private static String fileName(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - SEGMENT_SUFFIX.length());
+    }
+
+    // Checksum of the record at offset after its length and checksum
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + 8, length - 4));
+        return (int) crc.getValue();
+    }
+
+    public record PlanStoreStats(int plans, int segments, long bytes, long garbage, long droppedPlans, long failedWrites) {}
+
+    // Offset and length of the encoded plan, and the length of its whole record
+    private record Location(Segment segment, int offset, int length, int recordLength) {
+
+        ByteBuffer plan() {
+            return segment.buffer().slice(offset, length).asReadOnlyBuffer();
+        }
+    }
+
+    // Appends and live byte counts are guarded by the store's lock
+    private static final class Segment {
+
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private long live;
+
+        Segment(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        Path file() {
+            return file;
+        }
+
+        MappedByteBuffer buffer() {
+            return buffer;
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+
+        int position() {
+            return position;
+        }
+
+        void position(int position) {
+            this.position = position;
+        }
+
+        void addLive(int bytes) {
+            live += bytes;
+        }
+
+        // Bytes appended that are not in a live record, so not the unused end of a segment
+        long garbage() {
+            return position - SEGMENT_HEADER - live;
+        }
+    }
+}
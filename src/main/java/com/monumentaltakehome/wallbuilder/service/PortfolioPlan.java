@@ -0,0 +1,9 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.List;
+
+import com.monumentaltakehome.wallbuilder.response.WallDto;
+import com.monumentaltakehome.wallbuilder.service.WildBondPortfolio.PortfolioCandidate;
+
+// The best wall of a wild bond portfolio under its plan id, with every candidate planned by the deadline, best first
+public record PortfolioPlan(String planId, WallDto wall, List<PortfolioCandidate> candidates) {}
@@ -0,0 +1,6 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import com.monumentaltakehome.wallbuilder.response.WallDto;
+
+// A plan found by searching ahead across strides, with the strides it saved over the greedy plan
+public record SearchedPlan(WallDto wall, int stridesSaved) {}
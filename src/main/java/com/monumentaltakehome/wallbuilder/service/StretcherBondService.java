@@ -1,65 +1,70 @@
 package com.monumentaltakehome.wallbuilder.service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.IntStream;
-
 import org.springframework.stereotype.Service;
 
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
 @Service
 public class StretcherBondService implements WallService {
 
     private static final double BRICKS_PER_ROW = 10.5;
 
+    @Override
+    public BondType bondType() {
+        return BondType.STRETCHER;
+    }
+
     @Override
     public double wallWidth() {
         // 2300mm for 10.5 bricks per row
         return BRICKS_PER_ROW * COURSE_WIDTH - HEAD_JOINT;
     }
 
-    @SuppressWarnings("unused")
     @Override
-    public List<PlannedBrick> getNextRow(int rowNumber) {
-        if (BRICKS_PER_ROW % 0.5 != 0) {
-            throw new IllegalStateException("Brick and joint widths will not fit the wall width!");
+    public double wallWidth(WallGeometry geometry) {
+        return bricksPerRow(geometry) * COURSE_WIDTH - HEAD_JOINT;
+    }
+
+    // Whole number of half bricks that fit the wall length
+    private double bricksPerRow(WallGeometry geometry) {
+        int halfBricks = (geometry.wallLengthUnits() + HEAD_JOINT_UNITS) / (COURSE_WIDTH_UNITS / 2);
+        if (halfBricks < 2) {
+            throw new IllegalArgumentException("Wall length is too short for a stretcher bond!");
         }
-        if (BRICKS_PER_ROW % 1 == 0) {
+        return halfBricks / 2.0;
+    }
+
+    @Override
+    public void addNextRow(int rowNumber, WallGeometry geometry, WallLayout.Builder layout) {
+        double bricksPerRow = bricksPerRow(geometry);
+        int y = rowNumber * COURSE_HEIGHT_UNITS;
+        int fullBricksPerRow = (int) Math.floor(bricksPerRow);
+        if (bricksPerRow % 1 == 0) {
             if (rowNumber % 2 == 0) {
-                List<PlannedBrick> row = new ArrayList<>();
-                row.add(new PlannedBrick(0, rowNumber * COURSE_HEIGHT, HALF_BRICK_WIDTH, BRICK_HEIGHT));
-                row.addAll(IntStream.range(0, (int) BRICKS_PER_ROW - 1)
-                    .mapToDouble(i -> COURSE_WIDTH * (double) i + HALF_BRICK_WIDTH + HEAD_JOINT)
-                    .boxed()
-                    .map(x -> new PlannedBrick(x, rowNumber * COURSE_HEIGHT, FULL_BRICK_WIDTH, BRICK_HEIGHT))
-                    .toList());
-                row.add(new PlannedBrick(COURSE_WIDTH * (double) (BRICKS_PER_ROW - 1) + HALF_BRICK_WIDTH + HEAD_JOINT, rowNumber * COURSE_HEIGHT, HALF_BRICK_WIDTH, BRICK_HEIGHT));
-                return row;
+                layout.addBrick(rowNumber, 0, y, HALF_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+                for (int i = 0; i < fullBricksPerRow - 1; i++) {
+                    layout.addBrick(rowNumber, COURSE_WIDTH_UNITS * i + HALF_BRICK_UNITS + HEAD_JOINT_UNITS, y, FULL_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+                }
+                layout.addBrick(rowNumber, COURSE_WIDTH_UNITS * (fullBricksPerRow - 1) + HALF_BRICK_UNITS + HEAD_JOINT_UNITS, y, HALF_BRICK_UNITS, BRICK_HEIGHT_UNITS);
             } else {
-                return IntStream.range(0, (int) BRICKS_PER_ROW)
-                    .mapToDouble(i -> COURSE_WIDTH * (double) i)
-                    .boxed()
-                    .map(x -> new PlannedBrick(x, rowNumber * COURSE_HEIGHT, FULL_BRICK_WIDTH, BRICK_HEIGHT))
-                    .toList();
+                for (int i = 0; i < fullBricksPerRow; i++) {
+                    layout.addBrick(rowNumber, COURSE_WIDTH_UNITS * i, y, FULL_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+                }
             }
         } else {
-            List<PlannedBrick> row = new ArrayList<>();
-            int fullBricksPerRow = (int) Math.floor(BRICKS_PER_ROW);
             if (rowNumber % 2 == 0) {
-                row.add(new PlannedBrick(0, rowNumber * COURSE_HEIGHT, HALF_BRICK_WIDTH, BRICK_HEIGHT));
-                row.addAll(IntStream.range(0, fullBricksPerRow)
-                    .mapToDouble(i -> COURSE_WIDTH * (double) i + HALF_BRICK_WIDTH + HEAD_JOINT)
-                    .boxed()
-                    .map(x -> new PlannedBrick(x, rowNumber * COURSE_HEIGHT, FULL_BRICK_WIDTH, BRICK_HEIGHT))
-                    .toList());
+                layout.addBrick(rowNumber, 0, y, HALF_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+                for (int i = 0; i < fullBricksPerRow; i++) {
+                    layout.addBrick(rowNumber, COURSE_WIDTH_UNITS * i + HALF_BRICK_UNITS + HEAD_JOINT_UNITS, y, FULL_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+                }
             } else {
-                row.addAll(IntStream.range(0, fullBricksPerRow)
-                    .mapToDouble(i -> COURSE_WIDTH * (double) i)
-                    .boxed()
-                    .map(x -> new PlannedBrick(x, rowNumber * COURSE_HEIGHT, FULL_BRICK_WIDTH, BRICK_HEIGHT))
-                    .toList());
-                row.add(new PlannedBrick(COURSE_WIDTH * (double) fullBricksPerRow, rowNumber * COURSE_HEIGHT, HALF_BRICK_WIDTH, BRICK_HEIGHT));
+                for (int i = 0; i < fullBricksPerRow; i++) {
+                    layout.addBrick(rowNumber, COURSE_WIDTH_UNITS * i, y, FULL_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+                }
+                layout.addBrick(rowNumber, COURSE_WIDTH_UNITS * fullBricksPerRow, y, HALF_BRICK_UNITS, BRICK_HEIGHT_UNITS);
             }
-            return row;
         }
     }
 }
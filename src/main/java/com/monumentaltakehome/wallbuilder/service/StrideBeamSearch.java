@@ -0,0 +1,125 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.EnvelopeCoverageIndex;
+
+// Looks ahead across the strides of a tile for the envelope Xs that place every placeable brick in the fewest strides.
+// Each stride is still taken at the lowest placeable course and only its X is searched. States at the same depth are
+// ranked by the bricks they have placed, and each expands the BRANCHING Xs that place the most bricks.
+// The search is anytime: a beam of width 1 is exactly the greedy plan, then the beam is doubled until the deadline passes
+// or MAXIMUM_BEAM_WIDTH has been searched, and the fewest strides found so far are returned.
+final class StrideBeamSearch {
+
+    static final int BRANCHING = 4;
+    static final int MAXIMUM_BEAM_WIDTH = 64;
+
+    private StrideBeamSearch() {}
+
+    // Leaves the graph as it was found. The greedy plan is always searched in full, whatever the deadline.
+    static Result search(EnvelopeCandidates candidates, BrickDependencyGraph graph, EnvelopeCoverageIndex coverageIndex, long deadlineNanos) {
+        int root = graph.checkpoint();
+        int[] greedy = searchBeam(1, candidates, graph, coverageIndex, null, Long.MAX_VALUE);
+        if (greedy == null) {
+            return new Result(new int[0], 0);
+        }
+        int[] best = greedy;
+        for (int beamWidth = 2; beamWidth <= MAXIMUM_BEAM_WIDTH && System.nanoTime() < deadlineNanos; beamWidth *= 2) {
+            int[] found = searchBeam(beamWidth, candidates, graph, coverageIndex, best, deadlineNanos);
+            if (found != null && found.length < best.length) {
+                best = found;
+            }
+        }
+        graph.rollback(root);
+        return new Result(best, greedy.length);
+    }
+
+    // Returns the Xs of the shortest complete sequence shorter than the best so far, or null when there is none or the
+    // deadline passed first
+    private static int[] searchBeam(int beamWidth, EnvelopeCandidates candidates, BrickDependencyGraph graph,
+            EnvelopeCoverageIndex coverageIndex, int[] best, long deadlineNanos) {
+        int root = graph.checkpoint();
+        int strideLimit = best != null ? best.length : Integer.MAX_VALUE;
+        List<State> beam = List.of(new State(new int[0], new BitSet()));
+        try {
+            for (int depth = 0; !beam.isEmpty(); depth++) {
+                List<State> next = new ArrayList<>();
+                Set<BitSet> seen = new HashSet<>();
+                for (State state : beam) {
+                    if (System.nanoTime() >= deadlineNanos) {
+                        return null;
+                    }
+                    replay(state, graph, root);
+                    OptionalInt lowestBrick = graph.lowestPlaceableBrick();
+                    if (lowestBrick.isEmpty()) {
+                        // States are expanded in rank order, so the first complete state at the lowest depth wins
+                        return state.buildEnvXs();
+                    }
+                    // Another stride would at best tie with the plan already found
+                    if (depth + 1 >= strideLimit) {
+                        continue;
+                    }
+                    for (Expansion expansion : expansions(candidates, graph.layout().y(lowestBrick.getAsInt()), graph, coverageIndex)) {
+                        BitSet placed = (BitSet) state.placed().clone();
+                        placed.or(expansion.placed());
+                        // Different orders that reach the same bricks are the same state
+                        if (seen.add(placed)) {
+                            int[] buildEnvXs = Arrays.copyOf(state.buildEnvXs(), depth + 1);
+                            buildEnvXs[depth] = expansion.buildEnvX();
+                            next.add(new State(buildEnvXs, placed));
+                        }
+                    }
+                }
+                // A stable sort keeps the greedy choice first among equally good states
+                next.sort(Comparator.comparingInt((State state) -> state.placed().cardinality()).reversed());
+                beam = next.subList(0, Math.min(beamWidth, next.size()));
+            }
+            return null;
+        } finally {
+            graph.rollback(root);
+        }
+    }
+
+    // The distinct strides at buildEnvY, most bricks first and ties to the lowest X as in the greedy search
+    private static List<Expansion> expansions(EnvelopeCandidates candidates, int buildEnvY, BrickDependencyGraph graph,
+            EnvelopeCoverageIndex coverageIndex) {
+        List<Expansion> expansions = new ArrayList<>();
+        Set<BitSet> seen = new HashSet<>();
+        for (int buildEnvX : candidates.xs(graph, buildEnvY)) {
+            int checkpoint = graph.checkpoint();
+            int strideSize = graph.placeAllWithin(coverageIndex.coverage(buildEnvX, buildEnvY));
+            BitSet placed = new BitSet();
+            for (int i = checkpoint; i < graph.checkpoint(); i++) {
+                placed.set(graph.placementAt(i));
+            }
+            graph.rollback(checkpoint);
+            if (strideSize > 0 && seen.add(placed)) {
+                expansions.add(new Expansion(buildEnvX, placed));
+            }
+        }
+        expansions.sort(Comparator.comparingInt((Expansion expansion) -> expansion.placed().cardinality()).reversed());
+        return expansions.subList(0, Math.min(BRANCHING, expansions.size()));
+    }
+
+    // Dependencies come earlier in the layout, so placing in id order is always valid
+    private static void replay(State state, BrickDependencyGraph graph, int root) {
+        graph.rollback(root);
+        for (int id = state.placed().nextSetBit(0); id >= 0; id = state.placed().nextSetBit(id + 1)) {
+            graph.place(id);
+        }
+    }
+
+    record Result(int[] buildEnvXs, int greedyStrides) {}
+
+    private record State(int[] buildEnvXs, BitSet placed) {}
+
+    private record Expansion(int buildEnvX, BitSet placed) {}
+}
@@ -0,0 +1,223 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.service.WallService.Stride;
+
+// Orders the bricks of each stride to shorten the arm's travel under a MotionCostModel. The planner places a stride's
+// bricks course by course from the left, so the arm crosses the envelope back to the left edge at every course.
+// A stride is instead built as a nearest neighbour tour from its first brick, taking the closest brick whose
+// foundations and left neighbour in the stride are placed, then improved with 2-opt and single brick moves. Reversing a
+// part of the tour keeps every dependency as long as no two bricks in that part depend on each other, so only those
+// are tried. The planner's order is improved the same way, and the shorter of the two is kept if it travels less than
+// the planner's order, so a stride never gets longer. Strides of very large envelopes keep the planner's order, as the
+// tour's cost and dependency matrices grow with the square of their bricks.
+final class StrideSequencer {
+
+    // Improvement passes over a stride. This bounds the time spent on each stride like a deadline would, while keeping
+    // plans reproducible.
+    static final int MAXIMUM_PASSES = 8;
+    // Bricks in the largest stride that is sequenced, about a 2.5 m square envelope
+    static final int MAXIMUM_BRICKS = 512;
+
+    private final WallLayout layout;
+    private final boolean onlyPlaceAfterLeftNeigbour;
+    private final MotionCostModel motionCost;
+    private final PlanMetrics metrics;
+
+    StrideSequencer(WallLayout layout, boolean onlyPlaceAfterLeftNeigbour, MotionCostModel motionCost, PlanMetrics metrics) {
+        this.layout = layout;
+        this.onlyPlaceAfterLeftNeigbour = onlyPlaceAfterLeftNeigbour;
+        this.motionCost = motionCost;
+        this.metrics = metrics;
+    }
+
+    // Bricks of the stride must be in an order they can be placed in
+    Stride sequence(Stride stride) {
+        if (stride.brickIds().length > MAXIMUM_BRICKS) {
+            return stride;
+        }
+        long start = System.nanoTime();
+        int[] ids = stride.brickIds();
+        int n = ids.length;
+        int[][] cost = new int[n][n];
+        boolean[][] dependsOn = new boolean[n][n];
+        int[] dependencies = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                cost[i][j] = motionCost.cost(layout, ids[i], ids[j]);
+                if (dependsOn(ids[i], ids[j])) {
+                    dependsOn[i][j] = true;
+                    dependencies[i]++;
+                }
+            }
+        }
+
+        int[] planned = new int[n];
+        for (int i = 0; i < n; i++) {
+            planned[i] = i;
+        }
+        int[] order = nearestNeighbourTour(cost, dependsOn, dependencies);
+        improve(order, cost, dependsOn);
+        int[] improvedPlan = planned.clone();
+        improve(improvedPlan, cost, dependsOn);
+        if (travel(improvedPlan, cost) < travel(order, cost)) {
+            order = improvedPlan;
+        }
+        int saved = travel(planned, cost) - travel(order, cost);
+        PlanMetrics.record(metrics.sequencing, start);
+        if (saved <= 0) {
+            return stride;
+        }
+        metrics.travelSaved.increment(WallLayout.toMillimetres(saved));
+        int[] sequenced = new int[n];
+        for (int i = 0; i < n; i++) {
+            sequenced[i] = ids[order[i]];
+        }
+        return new Stride(stride.strideIndex(), sequenced);
+    }
+
+    // Travel of the arm through the bricks of the stride in order, in layout units
+    int travel(int[] brickIds) {
+        int travel = 0;
+        for (int i = 1; i < brickIds.length; i++) {
+            travel += motionCost.cost(layout, brickIds[i - 1], brickIds[i]);
+        }
+        return travel;
+    }
+
+    // Bricks only ever rest on the course directly below them
+    private boolean dependsOn(int id, int dependency) {
+        if (layout.rowNumber(dependency) == layout.rowNumber(id) - 1) {
+            return layout.isFoundationOf(dependency, id);
+        }
+        return onlyPlaceAfterLeftNeigbour && dependency == id - 1 && layout.rowNumber(dependency) == layout.rowNumber(id);
+    }
+
+    // Starts from the planner's first brick, which is always placeable, and breaks ties by the planner's order
+    private static int[] nearestNeighbourTour(int[][] cost, boolean[][] dependsOn, int[] dependencies) {
+        int n = cost.length;
+        int[] unplaced = dependencies.clone();
+        boolean[] placed = new boolean[n];
+        int[] order = new int[n];
+        int current = 0;
+        for (int step = 0; step < n; step++) {
+            if (step > 0) {
+                int next = -1;
+                for (int i = 0; i < n; i++) {
+                    if (!placed[i] && unplaced[i] == 0 && (next < 0 || cost[current][i] < cost[current][next])) {
+                        next = i;
+                    }
+                }
+                current = next;
+            }
+            order[step] = current;
+            placed[current] = true;
+            for (int i = 0; i < n; i++) {
+                if (dependsOn[i][current]) {
+                    unplaced[i]--;
+                }
+            }
+        }
+        return order;
+    }
+
+    // Reverses parts of the tour and moves single bricks while that shortens it, up to MAXIMUM_PASSES times
+    private static void improve(int[] order, int[][] cost, boolean[][] dependsOn) {
+        boolean improved = true;
+        for (int pass = 0; pass < MAXIMUM_PASSES && improved; pass++) {
+            improved = reverseParts(order, cost, dependsOn) | moveBricks(order, cost, dependsOn);
+        }
+    }
+
+    // A part grows brick by brick from its first brick, and stops growing at the first brick that depends on, or is
+    // depended on by, a brick already in it
+    private static boolean reverseParts(int[] order, int[][] cost, boolean[][] dependsOn) {
+        int n = order.length;
+        boolean improved = false;
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (dependsOnAny(order, i, j, dependsOn)) {
+                    break;
+                }
+                int before = (i > 0 ? cost[order[i - 1]][order[i]] : 0) + (j < n - 1 ? cost[order[j]][order[j + 1]] : 0);
+                int after = (i > 0 ? cost[order[i - 1]][order[j]] : 0) + (j < n - 1 ? cost[order[i]][order[j + 1]] : 0);
+                if (after < before) {
+                    reverse(order, i, j);
+                    improved = true;
+                    break;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // Moves a brick to where it adds the least travel, earlier up to its last dependency or later up to its first
+    // dependant. This is what lets a course start before the one below it is finished, climbing the stride diagonally.
+    private static boolean moveBricks(int[] order, int[][] cost, boolean[][] dependsOn) {
+        int n = order.length;
+        boolean improved = false;
+        for (int i = 0; i < n; i++) {
+            int brick = order[i];
+            int removed = (i > 0 ? cost[order[i - 1]][brick] : 0) + (i < n - 1 ? cost[brick][order[i + 1]] : 0)
+                - (i > 0 && i < n - 1 ? cost[order[i - 1]][order[i + 1]] : 0);
+            int bestGain = 0;
+            int bestPosition = i;
+            // Inserted before the brick at position k
+            for (int k = i - 1; k >= 0 && !dependsOn[brick][order[k]]; k--) {
+                int gain = removed - insertion(cost, brick, k > 0 ? order[k - 1] : -1, order[k]);
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    bestPosition = k;
+                }
+            }
+            // Inserted after the brick at position k
+            for (int k = i + 1; k < n && !dependsOn[order[k]][brick]; k++) {
+                int gain = removed - insertion(cost, brick, order[k], k < n - 1 ? order[k + 1] : -1);
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    bestPosition = k;
+                }
+            }
+            if (bestPosition < i) {
+                System.arraycopy(order, bestPosition, order, bestPosition + 1, i - bestPosition);
+            } else if (bestPosition > i) {
+                System.arraycopy(order, i + 1, order, i, bestPosition - i);
+            }
+            order[bestPosition] = brick;
+            improved |= bestGain > 0;
+        }
+        return improved;
+    }
+
+    // Travel added by setting the brick down between two others, either of which may be missing at the ends of the tour
+    private static int insertion(int[][] cost, int brick, int previous, int next) {
+        return (previous >= 0 ? cost[previous][brick] : 0) + (next >= 0 ? cost[brick][next] : 0)
+            - (previous >= 0 && next >= 0 ? cost[previous][next] : 0);
+    }
+
+    // Whether the brick at position j depends on, or is depended on by, any brick from position i up to j
+    private static boolean dependsOnAny(int[] order, int i, int j, boolean[][] dependsOn) {
+        for (int k = i; k < j; k++) {
+            if (dependsOn[order[j]][order[k]] || dependsOn[order[k]][order[j]]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void reverse(int[] order, int i, int j) {
+        while (i < j) {
+            int swap = order[i];
+            order[i++] = order[j];
+            order[j--] = swap;
+        }
+    }
+
+    private static int travel(int[] order, int[][] cost) {
+        int travel = 0;
+        for (int i = 1; i < order.length; i++) {
+            travel += cost[order[i - 1]][order[i]];
+        }
+        return travel;
+    }
+}
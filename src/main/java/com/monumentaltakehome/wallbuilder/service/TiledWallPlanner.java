@@ -0,0 +1,273 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.EnvelopeCoverageIndex;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.service.WallService.Stride;
+
+// Plans a wall as a sliding sequence of overlapping tiles, so that the dependency graph, envelope coverage and candidate
+// search only ever cover one tile and planning time grows linearly with wall length.
+// Each tile starts at the leftmost unplaced brick and is planned greedily: take the lowest placeable course and, of the
+// EnvelopeCandidates event points, the envelope X that places the most bricks there. Bricks a tile cannot finish, typically the racking back at its right edge,
+// are picked up by the next tile. A wall no wider than one tile is planned exactly as a single whole-wall greedy pass.
+// Regular bonds repeat every few courses, so PeriodicStrides translates greedy strides from the courses below instead of
+// searching again once the pattern recurs.
+// Only the compact layout and a placed bitset are kept for the whole wall; strides are handed to the consumer as they are committed.
+// Given a search budget, each tile instead takes the fewest strides StrideBeamSearch finds in its share of the budget.
+public class TiledWallPlanner {
+
+    // Width of a tile in build envelopes
+    public static final int TILE_WIDTH_ENVELOPES = 8;
+
+    private final WallLayout layout;
+    private final int wallWidth;
+    private final int envelopeWidth;
+    private final int envelopeHeight;
+    private final boolean onlyPlaceAfterLeftNeigbour;
+    private final PlanMetrics metrics;
+
+    private final int[] rowStarts;
+    private final int[] firstUnplacedInRow;
+    private final BitSet placed;
+    private int strideCount;
+    private int greedyStrideCount;
+
+    public TiledWallPlanner(WallLayout layout, int wallWidth, int envelopeWidth, int envelopeHeight,
+            boolean onlyPlaceAfterLeftNeigbour, PlanMetrics metrics) {
+        this.layout = layout;
+        this.wallWidth = wallWidth;
+        this.envelopeWidth = envelopeWidth;
+        this.envelopeHeight = envelopeHeight;
+        this.onlyPlaceAfterLeftNeigbour = onlyPlaceAfterLeftNeigbour;
+        this.metrics = metrics;
+        this.placed = new BitSet(layout.size());
+
+        this.rowStarts = layout.rowStarts();
+        this.firstUnplacedInRow = rowStarts.clone();
+    }
+
+    public WallLayout layout() {
+        return layout;
+    }
+
+    // Marks bricks that are already placed on site, so that planning only covers the rest of the wall.
+    // Every placed brick must rest on placed bricks, and follow its left neighbour when the planner requires that.
+    public void markPlaced(BitSet alreadyPlaced) {
+        for (int id = alreadyPlaced.nextSetBit(0); id >= 0; id = alreadyPlaced.nextSetBit(id + 1)) {
+            int row = rowOf(id);
+            if (onlyPlaceAfterLeftNeigbour && id > rowStarts[row] && !alreadyPlaced.get(id - 1)) {
+                throw new IllegalArgumentException(String.format("Brick at %s is placed before its left neighbour", position(id)));
+            }
+            if (row == 0) {
+                continue;
+            }
+            // Only the last brick starting left of this one can overlap it from the left
+            for (int below = Math.max(rowStarts[row - 1], firstBrickFrom(row - 1, layout.x(id)) - 1);
+                    below < rowStarts[row] && layout.x(below) < layout.x(id) + layout.width(id); below++) {
+                if (layout.rowNumber(below) == layout.rowNumber(id) - 1 && layout.isFoundationOf(below, id) && !alreadyPlaced.get(below)) {
+                    throw new IllegalArgumentException(String.format("Brick at %s is placed on the unplaced brick at %s", position(id), position(below)));
+                }
+            }
+        }
+        placed.or(alreadyPlaced);
+    }
+
+    // Strides are passed to the consumer with layout ids, in build order
+    public void plan(Consumer<Stride> strideConsumer) {
+        plan(Duration.ZERO, strideConsumer);
+    }
+
+    // A zero budget plans greedily. Otherwise the remaining budget is shared evenly between the tiles still to plan.
+    public void plan(Duration searchBudget, Consumer<Stride> strideConsumer) {
+        int tileWidth = TILE_WIDTH_ENVELOPES * envelopeWidth;
+        long deadline = System.nanoTime() + searchBudget.toNanos();
+        OptionalInt tileStart = leftmostUnplacedX();
+        while (tileStart.isPresent()) {
+            int tileEnd = tileStart.getAsInt() + tileWidth;
+            long now = System.nanoTime();
+            OptionalLong tileDeadline = searchBudget.isZero() ? OptionalLong.empty()
+                : OptionalLong.of(now + (deadline - now) / Math.max(1, Math.ceilDiv(wallWidth - tileStart.getAsInt(), tileWidth)));
+            // Widen the tile in the rare case that nothing inside it can be placed yet
+            while (!planTile(tileStart.getAsInt(), tileEnd, tileDeadline, strideConsumer)) {
+                if (tileEnd >= wallWidth) {
+                    throw new IllegalStateException(String.format("Unable to place the remaining bricks from x: %s", tileStart.getAsInt()));
+                }
+                tileEnd += tileWidth;
+            }
+            tileStart = leftmostUnplacedX();
+        }
+        metrics.stridesPerWall.record(strideCount);
+        if (!searchBudget.isZero()) {
+            metrics.stridesSaved.increment(stridesSaved());
+        }
+    }
+
+    // Strides saved by the search over greedy planning, counted once planning has finished
+    public int stridesSaved() {
+        return greedyStrideCount - strideCount;
+    }
+
+    // Without a deadline the tile is planned greedily
+    private boolean planTile(int tileStart, int tileEnd, OptionalLong tileDeadline, Consumer<Stride> strideConsumer) {
+        // Envelopes stay inside the tile and the wall
+        EnvelopeCandidates candidates = new EnvelopeCandidates(envelopeWidth, envelopeHeight, tileStart, Math.min(tileEnd, wallWidth) - envelopeWidth);
+        Tile tile = buildTile(tileStart, candidates.maxX() + envelopeWidth);
+        BrickDependencyGraph graph = tile.graph();
+        EnvelopeCoverageIndex coverageIndex = new EnvelopeCoverageIndex(graph.layout(), envelopeWidth, envelopeHeight);
+        // Small tiles are quicker to search on the calling thread than to split across cores
+        int parallelism = graph.size() >= WallService.PARALLEL_SEARCH_MIN_BRICKS ? WallService.CANDIDATE_SEARCH_PARALLELISM : 1;
+        PeriodicStrides periodicStrides = new PeriodicStrides(graph, tile.blocked(), envelopeHeight);
+
+        int[] searchedXs = new int[0];
+        int strideCountBefore = strideCount;
+        int greedyStrides = 0;
+        if (tileDeadline.isPresent()) {
+            long searchStart = System.nanoTime();
+            StrideBeamSearch.Result result = StrideBeamSearch.search(candidates, graph, coverageIndex, tileDeadline.getAsLong());
+            PlanMetrics.record(metrics.strideSearch, searchStart);
+            searchedXs = result.buildEnvXs();
+            greedyStrides = result.greedyStrides();
+        }
+
+        boolean placedAny = false;
+        long strideStart = System.nanoTime();
+        OptionalInt minY = getMinY(graph);
+        while (minY.isPresent()) {
+            int buildEnvX;
+            if (strideCount - strideCountBefore < searchedXs.length) {
+                buildEnvX = searchedXs[strideCount - strideCountBefore];
+            } else {
+                // Find optimum buildEnvX at this Y to maximise stride size
+                long searchStart = System.nanoTime();
+                OptionalInt repeatedX = periodicStrides.repeatedX();
+                if (repeatedX.isPresent()) {
+                    buildEnvX = repeatedX.getAsInt();
+                    metrics.repeatedStrides.increment();
+                } else {
+                    int[] candidateXs = candidates.xs(graph, minY.getAsInt());
+                    buildEnvX = EnvelopeCandidateSearch.findOptimumBuildEnvX(candidateXs, minY.getAsInt(), graph, coverageIndex, parallelism);
+                    periodicStrides.remember(buildEnvX);
+                }
+                PlanMetrics.record(metrics.candidateSearch, searchStart);
+            }
+            int checkpoint = graph.checkpoint();
+            graph.placeAllWithin(coverageIndex.coverage(buildEnvX, minY.getAsInt()));
+
+            int[] brickIds = new int[graph.checkpoint() - checkpoint];
+            for (int i = 0; i < brickIds.length; i++) {
+                brickIds[i] = tile.layoutIds()[graph.placementAt(checkpoint + i)];
+                placed.set(brickIds[i]);
+            }
+            PlanMetrics.record(metrics.stride, strideStart);
+            metrics.bricksPerStride.record(brickIds.length);
+            strideConsumer.accept(new Stride(strideCount++, brickIds));
+            placedAny = true;
+            strideStart = System.nanoTime();
+            minY = getMinY(graph);
+        }
+        // Tiles planned greedily, including those the search could not plan, count their own strides
+        greedyStrideCount += searchedXs.length > 0 ? greedyStrides : strideCount - strideCountBefore;
+        return placedAny;
+    }
+
+    // Lays out the bricks from tileStart up to the furthest left edge an envelope can reach, replaying bricks that are
+    // already placed and blocking those that sit on unplaced bricks beyond the tile
+    private Tile buildTile(int tileStart, int reach) {
+        int rows = rowStarts.length - 1;
+        int[] tileRowStarts = new int[rows + 1];
+        int[] tileRowEnds = new int[rows];
+        int size = 0;
+        for (int row = 0; row < rows; row++) {
+            tileRowStarts[row] = firstBrickFrom(row, tileStart);
+            tileRowEnds[row] = firstBrickFrom(row, reach + 1);
+            size += tileRowEnds[row] - tileRowStarts[row];
+        }
+
+        WallLayout.Builder tileLayout = new WallLayout.Builder();
+        int[] layoutIds = new int[size];
+        int tileId = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int id = tileRowStarts[row]; id < tileRowEnds[row]; id++) {
+                tileLayout.addBrick(layout.rowNumber(id), layout.x(id), layout.y(id), layout.width(id), layout.height(id));
+                layoutIds[tileId++] = id;
+            }
+        }
+
+        BrickDependencyGraph graph = new BrickDependencyGraph(tileLayout.build(), onlyPlaceAfterLeftNeigbour);
+        BitSet blocked = new BitSet(size);
+        for (int id = 0, row = -1; id < size; id++) {
+            int layoutId = layoutIds[id];
+            while (row < 0 || layoutId >= rowStarts[row + 1]) {
+                row++;
+            }
+            if (placed.get(layoutId)) {
+                graph.place(id);
+            } else if (row > 0 && restsOnUnplacedBrickBeyond(layoutId, row - 1, tileRowEnds[row - 1])) {
+                graph.block(id);
+                blocked.set(id);
+            }
+        }
+        return new Tile(graph, layoutIds, blocked);
+    }
+
+    private boolean restsOnUnplacedBrickBeyond(int id, int rowBelow, int firstBeyond) {
+        for (int below = firstBeyond; below < rowStarts[rowBelow + 1] && layout.x(below) < layout.x(id) + layout.width(id); below++) {
+            if (layout.rowNumber(below) == layout.rowNumber(id) - 1 && layout.isFoundationOf(below, id) && !placed.get(below)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int rowOf(int id) {
+        int row = Arrays.binarySearch(rowStarts, id);
+        return row >= 0 ? row : -row - 2;
+    }
+
+    private String position(int id) {
+        return String.format("x: %s, y: %s", WallLayout.toMillimetres(layout.x(id)), WallLayout.toMillimetres(layout.y(id)));
+    }
+
+    // Bricks within a row are ordered by x
+    private int firstBrickFrom(int row, int x) {
+        int low = rowStarts[row];
+        int high = rowStarts[row + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (layout.x(mid) < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private OptionalInt leftmostUnplacedX() {
+        OptionalInt leftmost = OptionalInt.empty();
+        for (int row = 0; row < rowStarts.length - 1; row++) {
+            int id = placed.nextClearBit(firstUnplacedInRow[row]);
+            firstUnplacedInRow[row] = Math.min(id, rowStarts[row + 1]);
+            if (id < rowStarts[row + 1] && (leftmost.isEmpty() || layout.x(id) < leftmost.getAsInt())) {
+                leftmost = OptionalInt.of(layout.x(id));
+            }
+        }
+        return leftmost;
+    }
+
+    private OptionalInt getMinY(BrickDependencyGraph graph) {
+        long start = System.nanoTime();
+        OptionalInt lowestBrick = graph.lowestPlaceableBrick();
+        PlanMetrics.record(metrics.minYSearch, start);
+        return lowestBrick.isPresent() ? OptionalInt.of(graph.layout().y(lowestBrick.getAsInt())) : OptionalInt.empty();
+    }
+
+    private record Tile(BrickDependencyGraph graph, int[] layoutIds, BitSet blocked) {}
+}
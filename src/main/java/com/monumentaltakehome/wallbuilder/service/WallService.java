@@ -1,12 +1,24 @@
 package com.monumentaltakehome.wallbuilder.service;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.monumentaltakehome.wallbuilder.domain.BondType;
 import com.monumentaltakehome.wallbuilder.domain.Brick;
+import com.monumentaltakehome.wallbuilder.domain.BuildTimings;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
 import com.monumentaltakehome.wallbuilder.response.BrickDto;
+import com.monumentaltakehome.wallbuilder.response.RobotPlanDto;
+import com.monumentaltakehome.wallbuilder.response.StrideDto;
+import com.monumentaltakehome.wallbuilder.response.TimelineStepDto;
 import com.monumentaltakehome.wallbuilder.response.WallDto;
+import com.monumentaltakehome.wallbuilder.response.ZonePlanDto;
+import com.monumentaltakehome.wallbuilder.service.BuildSimulator.Simulation;
+import com.monumentaltakehome.wallbuilder.service.ZonePlanner.RobotStride;
 
 public interface WallService {
 
@@ -24,121 +36,177 @@ public interface WallService {
     public static final int BUILD_ENV_WIDTH = 800;
     public static final int BUILD_ENV_HEIGHT = 1300;
 
+    // Maximum number of cores a single plan may use to evaluate envelope candidates, set to 1 for a serial search
+    public static final int CANDIDATE_SEARCH_PARALLELISM = Math.min(4, Runtime.getRuntime().availableProcessors());
+    public static final int PARALLEL_SEARCH_MIN_BRICKS = 2000;
+
     public static final double WALL_HEIGHT = 2000;
 
-    public static final double ROW_QUANTITY = WALL_HEIGHT / COURSE_HEIGHT;
+    // Exact fixed-point equivalents of the dimensions above, in WallLayout units
+    public static final int FULL_BRICK_UNITS = WallLayout.toUnits(FULL_BRICK_WIDTH);
+    public static final int HALF_BRICK_UNITS = WallLayout.toUnits(HALF_BRICK_WIDTH);
+    public static final int BRICK_HEIGHT_UNITS = WallLayout.toUnits(BRICK_HEIGHT);
+    public static final int HEAD_JOINT_UNITS = WallLayout.toUnits(HEAD_JOINT);
+    public static final int COURSE_WIDTH_UNITS = WallLayout.toUnits(COURSE_WIDTH);
+    public static final int COURSE_HEIGHT_UNITS = WallLayout.toUnits(COURSE_HEIGHT);
+    public static final int BUILD_ENV_WIDTH_UNITS = WallLayout.toUnits(BUILD_ENV_WIDTH);
+    public static final int BUILD_ENV_HEIGHT_UNITS = WallLayout.toUnits(BUILD_ENV_HEIGHT);
+    public static final int WALL_HEIGHT_UNITS = WallLayout.toUnits(WALL_HEIGHT);
+
+    public static final int ROW_QUANTITY = WALL_HEIGHT_UNITS / COURSE_HEIGHT_UNITS;
+
+    BondType bondType();
 
+    // Length of this bond's default wall
     double wallWidth();
 
-    List<PlannedBrick> getNextRow(int rowNumber);
+    // Width of the wall this bond lays within the geometry's length, rounded down to whole bricks
+    double wallWidth(WallGeometry geometry);
 
-    @SuppressWarnings("unused")
-    default WallDto generateWall() {
-        if (WALL_HEIGHT % COURSE_HEIGHT != 0) {
-            throw new IllegalStateException("Brick and joint heights will not fit the wall height!");
-        }
+    void addNextRow(int rowNumber, WallGeometry geometry, WallLayout.Builder layout);
 
-        ArrayList<Brick> allBricks = getFullBondMap();
+    // How the arm's travel between bricks is costed when sequencing the bricks of a stride
+    default MotionCostModel motionCostModel() {
+        return MotionCostModel.STRAIGHT_LINE;
+    }
 
-        List<Stride> strides = new ArrayList<>();
+    default WallGeometry defaultGeometry() {
+        return new WallGeometry(wallWidth(), WALL_HEIGHT, BUILD_ENV_WIDTH, BUILD_ENV_HEIGHT);
+    }
 
-        Optional<Double> minY = getMinY(allBricks);
-        
-        while (minY.isPresent()) {
-            // Find optimum buildEnvX at this Y to maximise stride size
-            double buildEnvX = findOptimumBuildEnvX(minY.get(), allBricks);
-            Stride nextStride = getNextStride(allBricks, buildEnvX, minY.get());
-            strides.add(nextStride);
-            minY = getMinY(allBricks);
-        }
+    default WallDto generateWall() {
+        return generateWall(defaultGeometry());
+    }
+
+    default WallDto generateWall(WallGeometry geometry) {
+        return planWall(getWallLayout(geometry), geometry);
+    }
+
+    default WallDto planWall(WallLayout layout, WallGeometry geometry) {
+        return planWall(layout, geometry, new BitSet());
+    }
 
+    // Plans the bricks that are not placed yet, for re-planning a wall that is partly built
+    default WallDto planWall(WallLayout layout, WallGeometry geometry, BitSet alreadyPlaced) {
         List<BrickDto> brickDtos = new ArrayList<>();
-        for (int i=0; i<strides.size(); i++) {
-            int strideIndex = i;
-            brickDtos.addAll(strides.get(i).bricks.stream()
-                .map(brick -> new BrickDto(brick.x(), brick.y(), brick.width(), brick.height(), strideIndex))
-                .toList());
-        }
+        planWall(layout, geometry, alreadyPlaced, stride -> brickDtos.addAll(stride.bricks()));
         return new WallDto(brickDtos);
     }
 
-    private Double findOptimumBuildEnvX(double buildEnvY, List<Brick> allBricks) {
-        double bestX = 0;
-        int maxStride = 0;
-        for (int x = 0; x < wallWidth() - BUILD_ENV_WIDTH; x += HALF_BRICK_WIDTH) {
-            ArrayList<Brick> allBricksCopy = new ArrayList<>(allBricks);
-            Stride stride = getNextStride(allBricksCopy, x, buildEnvY);
-            if (stride.bricks.size() > maxStride) {
-                bestX = x;
-                maxStride = stride.bricks.size();
+    default void planWall(WallLayout layout, WallGeometry geometry, Consumer<StrideDto> strideConsumer) {
+        planWall(layout, geometry, new BitSet(), strideConsumer);
+    }
+
+    // Each stride is handed to the consumer as soon as the planner commits it
+    default void planWall(WallLayout layout, WallGeometry geometry, BitSet alreadyPlaced, Consumer<StrideDto> strideConsumer) {
+        planWall(layout, geometry, alreadyPlaced, Duration.ZERO, strideConsumer);
+    }
+
+    // Searches for fewer strides than greedy planning for at most the search budget, and returns the strides saved
+    default int planWall(WallLayout layout, WallGeometry geometry, BitSet alreadyPlaced, Duration searchBudget,
+            Consumer<StrideDto> strideConsumer) {
+        PlanMetrics metrics = PlanMetrics.of(bondType());
+        TiledWallPlanner planner = createPlanner(layout, geometry);
+        StrideSequencer sequencer = createSequencer(layout);
+        planner.markPlaced(alreadyPlaced);
+        planner.plan(searchBudget, stride -> {
+            Stride sequenced = sequencer.sequence(stride);
+            long start = System.nanoTime();
+            StrideDto strideDto = strideDto(layout, sequenced);
+            PlanMetrics.record(metrics.dtoMapping, start);
+            strideConsumer.accept(strideDto);
+        });
+        return planner.stridesSaved();
+    }
+
+    // Plans the wall for several robots building at the same time, each in its own zone of courses
+    default ZonePlanDto planZones(WallLayout layout, WallGeometry geometry, int robots, double clearance) {
+        ZonePlanner planner = new ZonePlanner(layout, WallLayout.toUnits(wallWidth(geometry)), geometry.envelopeWidthUnits(),
+            geometry.envelopeHeightUnits(), robots, WallLayout.toUnits(clearance), onlyPlaceAfterLeftNeigbour, PlanMetrics.of(bondType()));
+        StrideSequencer sequencer = createSequencer(layout);
+        List<List<StrideDto>> robotStrides = new ArrayList<>();
+        for (int robot = 0; robot < robots; robot++) {
+            robotStrides.add(new ArrayList<>());
+        }
+        List<TimelineStepDto> timeline = new ArrayList<>();
+        planner.plan(robotStride -> {
+            robotStrides.get(robotStride.robot()).add(strideDto(layout, sequencer.sequence(robotStride.stride())));
+            // Every step has at least one stride, so steps arrive in order without gaps
+            if (timeline.size() == robotStride.step()) {
+                timeline.add(new TimelineStepDto(robotStride.step(), new ArrayList<>()));
             }
+            timeline.get(robotStride.step()).strideIndices().add(robotStride.stride().strideIndex());
+        });
+        List<RobotPlanDto> robotPlans = new ArrayList<>();
+        for (int robot = 0; robot < robots; robot++) {
+            robotPlans.add(new RobotPlanDto(robot, WallLayout.toMillimetres(planner.zoneFloor(robot)), robotStrides.get(robot)));
         }
-        return bestX;
+        return new ZonePlanDto(robotPlans, timeline);
     }
 
-    private Optional<Double> getMinY(List<Brick> allBricks) {
-        return allBricks.stream().filter(brick -> brick.isPlaceable(allBricks, onlyPlaceAfterLeftNeigbour)).map(Brick::y).min(Double::compare);
+    // Replays the strides of a plan, in layout ids, to estimate how long building it takes
+    default Simulation simulateBuild(WallLayout layout, List<RobotStride> strides, BuildTimings timings) {
+        return new BuildSimulator(layout, onlyPlaceAfterLeftNeigbour, motionCostModel(), timings).simulate(strides);
     }
 
-    default ArrayList<Brick> getFullBondMap() {
-        ArrayList<Brick> allBricks = new ArrayList<>();
-        for (int i = 1; i <= ROW_QUANTITY; i++) {
-            int rowNumber = i;
-            List<PlannedBrick> nextPlannedRow = getNextRow(i);
-            List<Brick> nextRow = new ArrayList<>();
-            for (int j = 0; j < nextPlannedRow.size(); j++) {
-                int columnNumber = j;
-                nextRow.add(createBrick(nextPlannedRow.get(j), rowNumber, columnNumber));
-            }
-            allBricks.addAll(nextRow);
+    private static StrideDto strideDto(WallLayout layout, Stride stride) {
+        List<BrickDto> brickDtos = new ArrayList<>(stride.brickIds().length);
+        for (int id : stride.brickIds()) {
+            brickDtos.add(new BrickDto(WallLayout.toMillimetres(layout.x(id)), WallLayout.toMillimetres(layout.y(id)),
+                WallLayout.toMillimetres(layout.width(id)), WallLayout.toMillimetres(layout.height(id)), stride.strideIndex()));
         }
-        return allBricks;
+        return new StrideDto(stride.strideIndex(), brickDtos);
     }
 
-    default Brick createBrick(PlannedBrick plannedBrick, int rowNumber, int columnNumber) {
-        return new Brick(plannedBrick.x(), plannedBrick.y(), plannedBrick.width(), plannedBrick.height(), false, rowNumber, columnNumber);
+    default TiledWallPlanner createPlanner(WallGeometry geometry) {
+        return createPlanner(getWallLayout(geometry), geometry);
     }
 
-    private Stride getNextStride(ArrayList<Brick> allBricks, double buildEnvX, double buildEnvY) {
-        List<Brick> nextStride = new ArrayList<>();
-        List<Brick> bricksWithinEnvelope = getBricksWithinEnvelope(allBricks, buildEnvX, buildEnvY);
-        
-        while(containsPlaceableBrick(bricksWithinEnvelope, allBricks)) {
-            Optional<Brick> placeableBrick = bricksWithinEnvelope.stream()
-                .filter(brick -> brick.isPlaceable(allBricks, onlyPlaceAfterLeftNeigbour)).findFirst();
+    default TiledWallPlanner createPlanner(WallLayout layout, WallGeometry geometry) {
+        return new TiledWallPlanner(layout, WallLayout.toUnits(wallWidth(geometry)),
+            geometry.envelopeWidthUnits(), geometry.envelopeHeightUnits(), onlyPlaceAfterLeftNeigbour,
+            PlanMetrics.of(bondType()));
+    }
 
-            if (placeableBrick.isPresent()) {
-                Brick brick = placeableBrick.get();
+    private StrideSequencer createSequencer(WallLayout layout) {
+        return new StrideSequencer(layout, onlyPlaceAfterLeftNeigbour, motionCostModel(), PlanMetrics.of(bondType()));
+    }
 
-                // Add the placeable brick to the nextStride
-                nextStride.add(brick);
+    default int rowQuantity(WallGeometry geometry) {
+        int rowQuantity = geometry.wallHeightUnits() / COURSE_HEIGHT_UNITS;
+        if (rowQuantity < 1) {
+            throw new IllegalArgumentException("Wall height is too low for a single course!");
+        }
+        return rowQuantity;
+    }
 
-                // Update the brick in allBricks as placed
-                int index = allBricks.indexOf(brick);
-                if (index != -1) {
-                    allBricks.set(index, brick.place());
-                }
+    default WallLayout getWallLayout() {
+        return getWallLayout(defaultGeometry());
+    }
 
-                // Refresh bricksWithinEnvelope to reflect the updated state
-                bricksWithinEnvelope = getBricksWithinEnvelope(allBricks, buildEnvX, buildEnvY);
-            }
+    default WallLayout getWallLayout(WallGeometry geometry) {
+        WallLayout.Builder layout = new WallLayout.Builder();
+        for (int i = 1; i <= rowQuantity(geometry); i++) {
+            addNextRow(i, geometry, layout);
         }
+        return layout.build();
+    }
 
-        return new Stride(nextStride);
+    default ArrayList<Brick> getFullBondMap() {
+        return new ArrayList<>(getWallLayout().bricks());
     }
 
-    private List<Brick> getBricksWithinEnvelope(List<Brick> bricks, double buildEnvX, double buildEnvY) {
-        return bricks.stream()
-            .filter(brick -> brick.x() >= buildEnvX && brick.x() <= buildEnvX + BUILD_ENV_WIDTH)
-            .filter(brick -> brick.y() >= buildEnvY && brick.y() <= buildEnvY + BUILD_ENV_HEIGHT)
+    // View of a single row of the default wall, laid out on its own
+    default List<PlannedBrick> getNextRow(int rowNumber) {
+        WallLayout.Builder builder = new WallLayout.Builder();
+        addNextRow(rowNumber, defaultGeometry(), builder);
+        return builder.build().bricks().stream()
+            .map(brick -> new PlannedBrick(brick.x(), brick.y(), brick.width(), brick.height()))
             .toList();
     }
 
-    private boolean containsPlaceableBrick(List<Brick> bricks, List<Brick> allBricks) {
-        return bricks.stream().anyMatch(brick -> brick.isPlaceable(allBricks, onlyPlaceAfterLeftNeigbour));
-    }
-    
     public record PlannedBrick(double x, double y, double width, double height) {}
 
-    public record Stride(List<Brick> bricks) {}
+    // Layout ids of the bricks placed in a stride, in placement order
+    public record Stride(int strideIndex, int[] brickIds) {}
 }
@@ -0,0 +1,204 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import com.monumentaltakehome.wallbuilder.domain.BuildTimings;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.response.WallDto;
+import com.monumentaltakehome.wallbuilder.service.BuildSimulator.Simulation;
+import com.monumentaltakehome.wallbuilder.service.WildBondService.FailedBondGenerationException;
+
+// Generates several wild bonds of the same wall from different seeds, plans each of them and keeps the one that builds
+// fastest. Any valid wild bond is accepted by the generator, but some plan into many more strides than others.
+// Candidates are ranked by the ETA of BuildSimulator, then by stride count, then by how far their head joints stand off
+// the joints of the course below, where a wider overlap makes a stronger and better looking bond.
+// The first candidate's seed is the requested seed and the others are drawn from it, so a portfolio that finishes
+// before its deadline always picks the same wall. Candidates run on a fixed pool of platform threads shared by all
+// requests, each request taking at most its parallelism of them. Workers stop taking candidates at the deadline and
+// the candidates finished by then are ranked, though the first candidate is always planned so there is a wall to return.
+// When the pool is busy with other requests and no worker has started the first candidate by the deadline, the request
+// plans it on its own thread rather than waiting for a worker.
+@Service
+public class WildBondPortfolio {
+
+    public static final int WORKERS = Runtime.getRuntime().availableProcessors();
+    public static final int MAXIMUM_CANDIDATES = 256;
+
+    private static final Comparator<PortfolioCandidate> RANKING = Comparator.comparingDouble(PortfolioCandidate::eta)
+        .thenComparingInt(PortfolioCandidate::strides)
+        .thenComparing(Comparator.comparingDouble(PortfolioCandidate::jointOverlap).reversed());
+
+    @Autowired
+    private WildBondService wildBondService;
+
+    private final ExecutorService workerPool;
+
+    public WildBondPortfolio() {
+        this(null, WORKERS);
+    }
+
+    WildBondPortfolio(WildBondService wildBondService, int workers) {
+        this.wildBondService = wildBondService;
+        this.workerPool = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("portfolio-worker-", 1).daemon().factory());
+    }
+
+    // Throws the first candidate's FailedBondGenerationException if no candidate could be generated
+    public Portfolio plan(WallGeometry geometry, long seed, int candidates, int parallelism, Duration deadline, BuildTimings timings) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        long[] seeds = new long[candidates];
+        Random random = new Random(seed);
+        for (int i = 0; i < candidates; i++) {
+            seeds[i] = i == 0 ? seed : random.nextLong();
+        }
+
+        AtomicInteger nextCandidate = new AtomicInteger();
+        Queue<PlannedCandidate> planned = new ConcurrentLinkedQueue<>();
+        AtomicReference<FailedBondGenerationException> failure = new AtomicReference<>();
+        CompletableFuture<Void> firstCandidate = new CompletableFuture<>();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int worker = 0; worker < Math.min(parallelism, candidates); worker++) {
+            workers.add(workerPool.submit(() -> {
+                for (int i = nextCandidate.getAndIncrement(); i < candidates && (i == 0 || System.nanoTime() < deadlineNanos);
+                        i = nextCandidate.getAndIncrement()) {
+                    try {
+                        planned.add(planCandidate(geometry, seeds[i], timings));
+                    } catch (FailedBondGenerationException e) {
+                        failure.compareAndSet(null, e);
+                    } catch (RuntimeException e) {
+                        firstCandidate.completeExceptionally(e);
+                        throw e;
+                    } finally {
+                        if (i == 0) {
+                            firstCandidate.complete(null);
+                        }
+                    }
+                }
+            }));
+        }
+        awaitWorkers(workers, deadlineNanos);
+        if (planned.isEmpty() && nextCandidate.compareAndSet(0, 1)) {
+            try {
+                planned.add(planCandidate(geometry, seeds[0], timings));
+            } catch (FailedBondGenerationException e) {
+                failure.compareAndSet(null, e);
+            }
+        } else if (planned.isEmpty()) {
+            // A worker is planning the first candidate
+            try {
+                firstCandidate.join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Failed to plan a portfolio candidate", e.getCause());
+            }
+        }
+        // Workers that have not started take no candidate past the deadline, so they are not left queued on the pool
+        workers.forEach(worker -> worker.cancel(false));
+
+        // Workers still running past the deadline finish their candidate, but it is no longer ranked
+        List<PlannedCandidate> ranked = new ArrayList<>(planned);
+        if (ranked.isEmpty()) {
+            throw failure.get();
+        }
+        ranked.sort(Comparator.comparing(PlannedCandidate::candidate, RANKING));
+        return new Portfolio(ranked.get(0).plan(), ranked.stream().map(PlannedCandidate::candidate).toList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
+    }
+
+    private static void awaitWorkers(List<Future<?>> workers, long deadlineNanos) {
+        try {
+            for (Future<?> worker : workers) {
+                worker.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            // Ranks what was planned by the deadline
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while planning the portfolio", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to plan a portfolio candidate", e.getCause());
+        }
+    }
+
+    private PlannedCandidate planCandidate(WallGeometry geometry, long seed, BuildTimings timings) {
+        WallLayout layout = wildBondService.getWallLayout(geometry, new Random(seed));
+        WallDto wall = wildBondService.planWall(layout, geometry);
+        Simulation simulation = wildBondService.simulateBuild(layout, BuildSimulator.robotStrides(layout, wall.bricks()), timings);
+        PortfolioCandidate candidate = new PortfolioCandidate(seed, simulation.timeline().size(), simulation.eta(), jointOverlap(layout));
+        return new PlannedCandidate(candidate, new Plan(layout, wall));
+    }
+
+    // Mean distance in millimetres from each head joint to the nearest head joint of the course below
+    static double jointOverlap(WallLayout layout) {
+        long total = 0;
+        int joints = 0;
+        int[] jointsBelow = new int[0];
+        int[] rowStarts = layout.rowStarts();
+        for (int row = 0; row < layout.rows(); row++) {
+            int rowStart = rowStarts[row];
+            int rowEnd = rowStarts[row + 1];
+            // The joint left of every brick but the first, by the brick's left edge
+            int[] rowJoints = new int[rowEnd - rowStart - 1];
+            for (int id = rowStart + 1; id < rowEnd; id++) {
+                rowJoints[id - rowStart - 1] = layout.x(id);
+            }
+            if (jointsBelow.length > 0) {
+                for (int joint : rowJoints) {
+                    total += distanceToNearest(jointsBelow, joint);
+                    joints++;
+                }
+            }
+            jointsBelow = rowJoints;
+        }
+        return joints > 0 ? (double) total / joints / WallLayout.UNITS_PER_MM : 0;
+    }
+
+    private static int distanceToNearest(int[] sortedJoints, int joint) {
+        int index = Arrays.binarySearch(sortedJoints, joint);
+        if (index >= 0) {
+            return 0;
+        }
+        int insertion = -index - 1;
+        int distance = Integer.MAX_VALUE;
+        if (insertion > 0) {
+            distance = joint - sortedJoints[insertion - 1];
+        }
+        if (insertion < sortedJoints.length) {
+            distance = Math.min(distance, sortedJoints[insertion] - joint);
+        }
+        return distance;
+    }
+
+    // The best plan, and every candidate planned by the deadline from best to worst
+    public record Portfolio(Plan best, List<PortfolioCandidate> candidates) {}
+
+    // ETA is in seconds and joint overlap in millimetres
+    public record PortfolioCandidate(long seed, int strides, double eta, double jointOverlap) {}
+
+    private record PlannedCandidate(PortfolioCandidate candidate, Plan plan) {}
+}
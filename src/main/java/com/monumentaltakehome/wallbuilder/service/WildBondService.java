@@ -1,12 +1,15 @@
 package com.monumentaltakehome.wallbuilder.service;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.springframework.stereotype.Service;
 
-import com.monumentaltakehome.wallbuilder.domain.Brick;
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.response.WallDto;
 
 @Service
 public class WildBondService implements WallService {
@@ -14,370 +17,348 @@ public class WildBondService implements WallService {
     // For Wild Bond this refers to the maximum number of full bricks between the edge half and three quarter bricks
     private static final int BRICKS_PER_ROW = 9;
     private static final double THREE_QUARTER_WIDTH = 150;
+    static final int THREE_QUARTER_UNITS = WallLayout.toUnits(THREE_QUARTER_WIDTH);
+    // Number of rows the staggered step check looks at, including the new row
+    private static final int JOINT_PATTERN_ROWS = 7;
 
-    private final int indexArraySize = 2 * BRICKS_PER_ROW + 1;
     private final int halfBricksFirstTry = 2;
-    private final int fullBricksFirstTry = BRICKS_PER_ROW - halfBricksFirstTry/2;
 
     private final int maxConsecutiveHalfBricks = 3;
     private final int maxConsecutiveFullBricks = 5;
     private final boolean checkStaggeredSteps = true;
     private final boolean checkFallingTeeth = true;
+    // Backtracks per row before backjumping gives way to the exhaustive search
+    private final int maxBacktracksPerRow = 10;
+    private final int maxBacktracksBeforeJump = 8;
+    // Random draws per number of extra half bricks before the rows at a height are enumerated instead
+    private final int maxDrawsPerRow = 1000;
+    // Rows are drawn with at most this many half bricks more than the fewest a row can have
+    private final int maxExtraHalfBricks = 8;
+
+    @Override
+    public BondType bondType() {
+        return BondType.WILD;
+    }
 
     @Override
     public double wallWidth() {
         // 2240mm for 9 bricks per row
-        return BRICKS_PER_ROW * (FULL_BRICK_WIDTH + HEAD_JOINT) + HALF_BRICK_WIDTH + THREE_QUARTER_WIDTH + HEAD_JOINT;
+        return wallWidth(BRICKS_PER_ROW);
     }
 
     @Override
-    public ArrayList<Brick> getFullBondMap() {
-        if (BRICKS_PER_ROW % 1 != 0) {
-            throw new IllegalStateException("Brick and joint widths will not fit the wall width!");
-        }
-
-        List<Row> rows = generateWildBondWithRetry();
-
-        // Create bond map after successfull bond generation
-        ArrayList<Brick> allBricks = new ArrayList<>();
-        for (int i = 1; i <= ROW_QUANTITY; i++) {
-            int rowNumber = i;
-            List<PlannedBrick> nextPlannedRow = getNextWildRow(rowNumber, rows.get(i-1));
-            List<Brick> nextRow = new ArrayList<>();
-            for (int j = 0; j < nextPlannedRow.size(); j++) {
-                int columnNumber = j;
-                nextRow.add(createBrick(nextPlannedRow.get(j), rowNumber, columnNumber));
-            }
-            allBricks.addAll(nextRow);
-        }
-        return allBricks;
-
+    public double wallWidth(WallGeometry geometry) {
+        return wallWidth(bricksPerRow(geometry));
     }
 
-    public List<Row> generateWildBondWithRetry() {
-        for (int i=0; i < 100; i++) {
-            try {
-                return generateWildBond();
-            } catch (FailedBondGenerationException e) {
-                if (i >= 99) {
-                    throw e;
-                }
-            }
-        }
-        return List.of();
+    private double wallWidth(int bricksPerRow) {
+        return bricksPerRow * (FULL_BRICK_WIDTH + HEAD_JOINT) + HALF_BRICK_WIDTH + THREE_QUARTER_WIDTH + HEAD_JOINT;
     }
 
-    // Produce a new row of random bricks that meets following conditions:
-    // 1. No head joints directly on top of eachother (automatic)
-    // 2. Check staggered steps (no more than 6)
-    // 3. Check falling teeth (no more than 6)
-    // 4. Maximum of 3 half bricks next to each other
-    // 5. Maximum of 5 full bricks next to each other
-    private List<Row> generateWildBond() {
-        List<int[]> jointIndexRows = new ArrayList<>();
-        List<Row> rows = new ArrayList<>();
-
-        for (int rowNumber = 1; rowNumber <= ROW_QUANTITY; rowNumber++) {
-
-            int adjacentChecks = 0;
-            int belowRowChecks = 0;
-            boolean validRow = false;
-            List<BrickType> brickArray = new ArrayList<>();
-            int[] newJointIndexRow = new int[indexArraySize];
-
-            // Try for different quantities of half and full bricks
-            for (int halfBrickQuant = halfBricksFirstTry; halfBrickQuant < fullBricksFirstTry; halfBrickQuant+= 2) {
-                int fullBrickQuant = BRICKS_PER_ROW - halfBrickQuant/2;
-                for (int i=0; i < 300; i++) {
-                    brickArray = generateRandomBrickArray(halfBrickQuant, fullBrickQuant);
-                    if (rowPassesAdjacentBrickConditions(brickArray)) {
-                        newJointIndexRow = convertToJointIndexArray(brickArray);
-                        if (rowPassesJointPatternConditions(newJointIndexRow, jointIndexRows)) {
-                            validRow = true;
-                            break;
-                        } else {
-                            belowRowChecks++;
-                            if (adjacentChecks > 100) {
-                                break;
-                            }
-                        }
-                    } else {
-                        adjacentChecks++;
-                        if (adjacentChecks > 100) {
-                            break;
-                        }
-                    }
-                }
-                if (validRow) {
-                    break;
-                }
-            }
-
-            if (validRow) {
-                jointIndexRows.add(newJointIndexRow);
-                rows.add(new Row(brickArray));
-            } else {
-                throw new FailedBondGenerationException(String.format("Failed to generate wild bond at row: %s, adjacentChecks: %s, belowRowChecks: %s", rowNumber, adjacentChecks, belowRowChecks));
-            }
+    private int bricksPerRow(WallGeometry geometry) {
+        int edgeBricks = HALF_BRICK_UNITS + THREE_QUARTER_UNITS + HEAD_JOINT_UNITS;
+        int bricksPerRow = (geometry.wallLengthUnits() - edgeBricks) / (FULL_BRICK_UNITS + HEAD_JOINT_UNITS);
+        // The generator needs room for at least two half bricks between the edge bricks
+        if (bricksPerRow < 4) {
+            throw new IllegalArgumentException("Wall length is too short for a wild bond!");
         }
-        return rows;
+        return bricksPerRow;
     }
 
-    private List<BrickType> generateRandomBrickArray(int halfBrickQuant, int fullBrickQuant) {
-        List<BrickType> brickArray = new ArrayList<>();
-        for (int i = 0; i < halfBrickQuant; i++) {
-            brickArray.add(BrickType.HALF);
-        }
-        for (int i = 0; i < fullBrickQuant; i++) {
-            brickArray.add(BrickType.FULL);
-        }
-        Collections.shuffle(brickArray);
-
-        return brickArray;
+    @Override
+    public WallLayout getWallLayout(WallGeometry geometry) {
+        return getWallLayout(geometry, new Random());
     }
 
-    private int[] convertToJointIndexArray(List<BrickType> brickArray) {
-        int[] jointIndexArray = new int[indexArraySize];
-        jointIndexArray[0] = 1;
-        int j = 0;
-        for (int i = 0; i < brickArray.size(); i++) {
-            if (brickArray.get(i) == BrickType.HALF) {
-                jointIndexArray[j+1] = 1;
-                j++;
-            } else {
-                jointIndexArray[j+2] = 1;
-                j += 2;
-            }
-        }
-        return jointIndexArray;
+    // The same seed and geometry always produce the same wall
+    public WallDto generateWall(WallGeometry geometry, long seed) {
+        return planWall(getWallLayout(geometry, new Random(seed)), geometry);
     }
 
-    private boolean rowPassesAdjacentBrickConditions(List<BrickType> brickTypes) {
-        int consecutiveHalfBricks = 0;
-        int consecutiveFullBricks = 0;
-    
-        for (BrickType brickType : brickTypes) {
-            if (brickType == BrickType.HALF) {
-                consecutiveHalfBricks++;
-                consecutiveFullBricks = 0;
-                if (consecutiveHalfBricks > maxConsecutiveHalfBricks) {
-                    return false;
-                }
-            } else if (brickType == BrickType.FULL) {
-                consecutiveFullBricks++;
-                consecutiveHalfBricks = 0;
-                if (consecutiveFullBricks > maxConsecutiveFullBricks) {
-                    return false;
-                }
-            }
-        }
-    
-        return true;
-    }
+    public WallLayout getWallLayout(WallGeometry geometry, Random random) {
+        int rowQuantity = rowQuantity(geometry);
+        List<Row> rows = generateWildBond(rowQuantity, bricksPerRow(geometry), random);
 
-    private boolean rowPassesJointPatternConditions(int[] newRow, List<int[]> existingRows) {
-        if (checkStaggeredSteps && !rowPassesStaggeredStepCheck(newRow, existingRows)) {
-            return false;
-        }
-        if (checkFallingTeeth && !rowPassesFallingTeethCheck(newRow, existingRows)) {
-            return false;
+        // Create bond map after successfull bond generation
+        WallLayout.Builder layout = new WallLayout.Builder();
+        for (int i = 1; i <= rowQuantity; i++) {
+            addNextWildRow(i, rows.get(i-1), layout);
         }
-        return true;
-    }
+        return layout.build();
 
-    private boolean rowPassesStaggeredStepCheck(int[] newRow, List<int[]> existingRows) {
-        int numberOfExistingRows = existingRows.size();
-        boolean oddRow = numberOfExistingRows % 2 == 0; // odd considering 1st row as odd (index 0)
-        if (numberOfExistingRows >= 7 && newRow.length >= 4) {
-            if (!rowPassesLeftStepCheck(newRow, existingRows, oddRow, numberOfExistingRows)) {
-                return false;
-            }
-            if (!rowPassesRightStepCheck(newRow, existingRows, oddRow, numberOfExistingRows)) {
-                return false;
-            }
-        }
-        return true;
     }
 
-    private boolean rowPassesLeftStepCheck(int[] newRow, List<int[]> existingRows, boolean oddRow, int numberOfExistingRows) {
-        for (int i = 3; i < newRow.length; i++) {
-            List<Integer> leftStepJointPositions = new ArrayList<>();
-            if (oddRow) {
-                leftStepJointPositions.add(newRow[i]);
-                leftStepJointPositions.add(existingRows.getLast()[i]);
-                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i-1]);
-                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i-1]);
-                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i-2]);
-                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i-2]);
-                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i-3]);
-            } else {
-                leftStepJointPositions.add(newRow[i]);
-                leftStepJointPositions.add(existingRows.getLast()[i-1]);
-                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i-1]);
-                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i-2]);
-                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i-2]);
-                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i-3]);
-                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i-3]);
-            }
-            if (!leftStepJointPositions.stream().anyMatch(joint -> joint == 0)) {
-                return false;
-            }
-        }
-        return true;
+    public List<Row> generateWildBond() {
+        return generateWildBond(ROW_QUANTITY, BRICKS_PER_ROW, new Random());
     }
 
-    private boolean rowPassesRightStepCheck(int[] newRow, List<int[]> existingRows, boolean oddRow, int numberOfExistingRows) {
-        for (int i = 0; i < newRow.length-3; i++) {
-            List<Integer> rightStepJointPositions = new ArrayList<>();
-            if (oddRow) {
-                rightStepJointPositions.add(newRow[i]);
-                rightStepJointPositions.add(existingRows.getLast()[i+1]);
-                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i+1]);
-                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i+2]);
-                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i+2]);
-                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i+3]);
-                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i+3]);
-            } else {
-                rightStepJointPositions.add(newRow[i]);
-                rightStepJointPositions.add(existingRows.getLast()[i]);
-                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i+1]);
-                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i+1]);
-                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i+2]);
-                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i+2]);
-                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i+3]);
-            }
-            if (!rightStepJointPositions.stream().anyMatch(joint -> joint == 0)) {
-                return false;
-            }
-        }
-        return true;
+    // Rows are generated from the bottom up. When no valid row fits on top of the rows so far, the row below is
+    // discarded and replaced by a candidate not tried there yet, so a dead end only undoes the few rows the joint
+    // pattern checks look back at instead of restarting the whole wall.
+    // Jumping back past several rows finds a wall quickly, but abandons rows that were not fully explored. So once
+    // maxBacktracksPerRow backtracks per row are used up, the search restarts from the bottom row and only ever
+    // discards the row below, trying every row at a height before going further down. That search is exhaustive over
+    // rows with at most maxExtraHalfBricks extra half bricks and has no cap, so the exception is only thrown once
+    // the bottom row has no candidates left, that is when no such wall meets the joint rules.
+    // All working storage is allocated up front, so drawing a row allocates nothing.
+    public List<Row> generateWildBond(int rowQuantity, int bricksPerRow, Random random) {
+        return generateWildBond(rowQuantity, bricksPerRow, random, maxBacktracksPerRow * rowQuantity);
     }
 
-    private boolean rowPassesFallingTeethCheck(int[] newRow, List<int[]> existingRows) {
-        int numberOfExistingRows = existingRows.size();
-        boolean oddRow = numberOfExistingRows % 2 == 0; // odd considering 1st row as odd (index 0)
-
-        if (numberOfExistingRows >= 6 && newRow.length >= 4) {
-            //Check left teeth
-            if (!rowPassesLeftTeethCheck(newRow, existingRows, oddRow, numberOfExistingRows)) {
-                return false;
-            }
-            //Check right teeth
-            if (!rowPassesRightTeethCheck(newRow, existingRows, oddRow, numberOfExistingRows)) {
-                return false;
-            }
-
+    List<Row> generateWildBond(int rowQuantity, int bricksPerRow, Random random, int backjumpingBacktracks) {
+        JointPatternHistory history = new JointPatternHistory(rowQuantity, 2 * bricksPerRow + 1);
+        WildRowSampler sampler = new WildRowSampler(bricksPerRow, halfBricksFirstTry, bricksPerRow - halfBricksFirstTry/2 - 1,
+            maxExtraHalfBricks, maxConsecutiveHalfBricks, maxConsecutiveFullBricks);
+        BrickType[][] rows = new BrickType[rowQuantity][];
+        // Candidate rows already tried at each height, on top of the rows currently below it
+        TriedRows[] triedRows = new TriedRows[rowQuantity];
+        for (int i = 0; i < rowQuantity; i++) {
+            triedRows[i] = new TriedRows(history.words(), 2 * bricksPerRow);
         }
-        return true;
-    }
-
-    private boolean rowPassesLeftTeethCheck(int[] newRow, List<int[]> existingRows, boolean oddRow, int numberOfExistingRows) {
-        for (int i = 1; i < newRow.length-1; i++) {
-            List<Integer> leftTeethJointPositions = new ArrayList<>();
-            if (oddRow) {
-                leftTeethJointPositions.add(newRow[i]);
-                leftTeethJointPositions.add(existingRows.getLast()[i]);
-                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i]);
-                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i]);
-                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i]);
-                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i]);
-                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i]);
-            } else {
-                leftTeethJointPositions.add(newRow[i]);
-                leftTeethJointPositions.add(existingRows.getLast()[i-1]);
-                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i]);
-                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i-1]);
-                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i]);
-                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i-1]);
-                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i]);
-            }
-            if (!leftTeethJointPositions.stream().anyMatch(joint -> joint == 0)) {
-                return false;
+        BrickType[] brickArray = new BrickType[2 * bricksPerRow];
+        long[] jointRow = new long[history.words()];
+        long[] forbiddenJoints = new long[history.words()];
+        GenerationCounts counts = new GenerationCounts();
+        boolean backjumping = true;
+        int highestRow = 0;
+        int backtracksSinceProgress = 0;
+
+        try {
+            while (history.size() < rowQuantity) {
+                int brickCount = findNextRow(history, sampler, triedRows[history.size()], brickArray, jointRow, forbiddenJoints, random, counts);
+                if (brickCount > 0) {
+                    rows[history.size()] = Arrays.copyOf(brickArray, brickCount);
+                    history.push(jointRow);
+                    if (history.size() < rowQuantity) {
+                        triedRows[history.size()].clear();
+                    }
+                    if (history.size() > highestRow) {
+                        highestRow = history.size();
+                        backtracksSinceProgress = 0;
+                    }
+                } else if (backjumping && (history.size() == 0 || counts.backtracks >= backjumpingBacktracks)) {
+                    backjumping = false;
+                    while (history.size() > 0) {
+                        history.pop();
+                    }
+                    triedRows[0].clear();
+                } else if (history.size() == 0) {
+                    throw new FailedBondGenerationException(String.format("No wild bond of %s rows meets the joint rules, backtracks: %s", rowQuantity, counts.backtracks));
+                } else {
+                    counts.backtracks++;
+                    // A dead end that survives several single row backtracks is caused further down, so jump back past
+                    // every row the joint pattern checks can see
+                    int discardedRows = backjumping && ++backtracksSinceProgress % maxBacktracksBeforeJump == 0 ? Math.min(JOINT_PATTERN_ROWS, history.size()) : 1;
+                    if (discardedRows > 1) {
+                        counts.backjumps++;
+                    }
+                    for (int i = 0; i < discardedRows; i++) {
+                        history.pop();
+                    }
+                }
             }
+        } catch (FailedBondGenerationException e) {
+            PlanMetrics.of(bondType()).failedBonds.increment();
+            throw e;
+        } finally {
+            counts.record(PlanMetrics.of(bondType()));
         }
-        return true;
+        return Arrays.stream(rows).map(row -> new Row(List.of(row))).toList();
     }
 
-    private boolean rowPassesRightTeethCheck(int[] newRow, List<int[]> existingRows, boolean oddRow, int numberOfExistingRows) {
-        for (int i = 1; i < newRow.length-1; i++) {
-            List<Integer> rightTeethJointPositions = new ArrayList<>();
-            if (oddRow) {
-                rightTeethJointPositions.add(newRow[i]);
-                rightTeethJointPositions.add(existingRows.getLast()[i+1]);
-                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i]);
-                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i+1]);
-                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i]);
-                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i+1]);
-                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i]);
-            } else {
-                rightTeethJointPositions.add(newRow[i]);
-                rightTeethJointPositions.add(existingRows.getLast()[i]);
-                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i]);
-                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i]);
-                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i]);
-                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i]);
-                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i]);
+    // Produce a new row of random bricks that meets following conditions:
+    // 1. No head joints directly on top of eachother (automatic)
+    // 2. Check staggered steps (no more than 6)
+    // 3. Check falling teeth (no more than 6)
+    // 4. Maximum of 3 half bricks next to each other
+    // 5. Maximum of 5 full bricks next to each other
+    // Conditions 2 and 3 become joint positions the new row must avoid, and the sampler only draws rows that meet
+    // all of them, so no candidate is ever rejected. Rows with the fewest half bricks are drawn first, and rows with
+    // more half bricks once every row with fewer has been tried at this height.
+    // Random draws are bounded, and once they are used up the rows at this height are enumerated in order, skipping the
+    // ones already tried, so 0 is only returned once every valid row has been tried.
+    // The row is left in brickArray and jointRow, and the number of bricks in it is returned, or 0 if none was found
+    private int findNextRow(JointPatternHistory history, WildRowSampler sampler, TriedRows triedRows, BrickType[] brickArray,
+            long[] jointRow, long[] forbiddenJoints, Random random, GenerationCounts counts) {
+        history.forbiddenJoints(forbiddenJoints, checkStaggeredSteps, checkFallingTeeth);
+        sampler.prepare(forbiddenJoints, 0);
+        // Without a row with the fewest half bricks there is no row at all
+        if (sampler.rowCount(0) == 0) {
+            return 0;
+        }
+        if (!triedRows.enumerating) {
+            double validRows = 0;
+            for (int extraHalfBricks = 0; extraHalfBricks <= maxExtraHalfBricks; extraHalfBricks += 2) {
+                if (extraHalfBricks == 2) {
+                    sampler.prepare(forbiddenJoints, maxExtraHalfBricks);
+                }
+                validRows += sampler.rowCount(extraHalfBricks);
+                for (int i = 0; i < maxDrawsPerRow && triedRows.size() < validRows; i++) {
+                    int brickCount = sampler.sample(extraHalfBricks, random, brickArray, jointRow);
+                    counts.rowsDrawn++;
+                    if (triedRows.add(history.fingerprint(jointRow), jointRow)) {
+                        return brickCount;
+                    }
+                    counts.repeatedRows++;
+                }
             }
+            triedRows.enumerating = true;
+        }
 
-            if (!rightTeethJointPositions.stream().anyMatch(joint -> joint == 0)) {
-                return false;
+        // Carries on from the last row enumerated at this height, as the rows below have not changed since
+        sampler.prepare(forbiddenJoints, maxExtraHalfBricks);
+        for (; triedRows.cursorExtraHalfBricks <= maxExtraHalfBricks; triedRows.cursorExtraHalfBricks += 2, triedRows.cursorBricks = 0) {
+            int extraHalfBricks = triedRows.cursorExtraHalfBricks;
+            BrickType[] cursor = triedRows.cursor;
+            int brickCount = triedRows.cursorBricks == 0
+                ? sampler.firstRow(extraHalfBricks, cursor, jointRow)
+                : sampler.nextRow(extraHalfBricks, cursor, triedRows.cursorBricks, jointRow);
+            for (; brickCount > 0; brickCount = sampler.nextRow(extraHalfBricks, cursor, brickCount, jointRow)) {
+                triedRows.cursorBricks = brickCount;
+                counts.rowsDrawn++;
+                if (triedRows.add(history.fingerprint(jointRow), jointRow)) {
+                    System.arraycopy(cursor, 0, brickArray, 0, brickCount);
+                    return brickCount;
+                }
+                counts.repeatedRows++;
             }
         }
-        return true;
+        return 0;
     }
 
-    @SuppressWarnings("unused")
-    public List<PlannedBrick> getNextWildRow(int rowNumber, Row brickRow) {
+    public void addNextWildRow(int rowNumber, Row brickRow, WallLayout.Builder layout) {
         List<BrickType> brickArray = brickRow.brickTypes;
-        List<PlannedBrick> row = new ArrayList<>();
-        double y = rowNumber * COURSE_HEIGHT;
+        int y = rowNumber * COURSE_HEIGHT_UNITS;
         if (rowNumber % 2 == 0) {
             // Add Half brick to start
-            double x = 0;
-            row.add(new PlannedBrick(x, y, HALF_BRICK_WIDTH, BRICK_HEIGHT));
-            x+= HALF_BRICK_WIDTH + HEAD_JOINT;
+            int x = 0;
+            layout.addBrick(rowNumber, x, y, HALF_BRICK_UNITS, BRICK_HEIGHT_UNITS);
+            x+= HALF_BRICK_UNITS + HEAD_JOINT_UNITS;
             // Add the randomly arranged bricks
             for (int i = 0; i < brickArray.size(); i++) {
-                double brickWidth = brickArray.get(i) == BrickType.HALF
-                    ? HALF_BRICK_WIDTH
-                    : FULL_BRICK_WIDTH;
-                row.add(new PlannedBrick(x, y, brickWidth, BRICK_HEIGHT));
-                x += brickWidth + HEAD_JOINT;
+                int brickWidth = brickArray.get(i) == BrickType.HALF
+                    ? HALF_BRICK_UNITS
+                    : FULL_BRICK_UNITS;
+                layout.addBrick(rowNumber, x, y, brickWidth, BRICK_HEIGHT_UNITS);
+                x += brickWidth + HEAD_JOINT_UNITS;
             }
             // Add Three Quarter brick to end
-            row.add(new PlannedBrick(x, y, THREE_QUARTER_WIDTH, BRICK_HEIGHT));
+            layout.addBrick(rowNumber, x, y, THREE_QUARTER_UNITS, BRICK_HEIGHT_UNITS);
         } else {
             // Add Three Quarter brick to start
-            double x = 0;
-            row.add(new PlannedBrick(x, y, THREE_QUARTER_WIDTH, BRICK_HEIGHT));
-            x+= THREE_QUARTER_WIDTH + HEAD_JOINT;
+            int x = 0;
+            layout.addBrick(rowNumber, x, y, THREE_QUARTER_UNITS, BRICK_HEIGHT_UNITS);
+            x+= THREE_QUARTER_UNITS + HEAD_JOINT_UNITS;
             // Add the randomly arranged bricks
             for (int i = 0; i < brickArray.size(); i++) {
-                double brickWidth = brickArray.get(i) == BrickType.HALF
-                    ? HALF_BRICK_WIDTH
-                    : FULL_BRICK_WIDTH;
-                row.add(new PlannedBrick(x, y, brickWidth, BRICK_HEIGHT));
-                x += brickWidth + HEAD_JOINT;
+                int brickWidth = brickArray.get(i) == BrickType.HALF
+                    ? HALF_BRICK_UNITS
+                    : FULL_BRICK_UNITS;
+                layout.addBrick(rowNumber, x, y, brickWidth, BRICK_HEIGHT_UNITS);
+                x += brickWidth + HEAD_JOINT_UNITS;
             }
             // Add Half brick to end 
-            row.add(new PlannedBrick(x, y, HALF_BRICK_WIDTH, BRICK_HEIGHT));
+            layout.addBrick(rowNumber, x, y, HALF_BRICK_UNITS, BRICK_HEIGHT_UNITS);
         }
-        return row;
     }
 
     @Override
-    public List<PlannedBrick> getNextRow(int rowNumber) {
+    public void addNextRow(int rowNumber, WallGeometry geometry, WallLayout.Builder layout) {
         // Method not required for Wild Bond
-        return List.of();
     }
 
-    private enum BrickType {
+    enum BrickType {
         FULL,
         HALF
     }
 
     private record Row(List<BrickType> brickTypes) {}
 
+    // Counted while generating a bond and recorded once it is done, so the generator's inner loop never touches a meter
+    private static class GenerationCounts {
+
+        int rowsDrawn;
+        int repeatedRows;
+        int backtracks;
+        int backjumps;
+
+        void record(PlanMetrics metrics) {
+            metrics.rowsDrawn.increment(rowsDrawn);
+            metrics.repeatedRows.increment(repeatedRows);
+            metrics.backtracks.increment(backtracks);
+            metrics.backjumps.increment(backjumps);
+        }
+    }
+
+    // Open addressing set of the joint rows tried at a height, hashed by their fingerprint and compared in full so no
+    // untried row is ever taken for a tried one. It is cleared rather than reallocated between uses, and also holds
+    // where the enumeration of rows at that height has got to.
+    private static class TriedRows {
+
+        private final int words;
+        private long[] fingerprints = new long[16];
+        private long[] rows;
+        private int size;
+
+        boolean enumerating;
+        int cursorExtraHalfBricks;
+        int cursorBricks;
+        final BrickType[] cursor;
+
+        TriedRows(int words, int maximumBricks) {
+            this.words = words;
+            this.rows = new long[fingerprints.length * words];
+            this.cursor = new BrickType[maximumBricks];
+        }
+
+        boolean add(long fingerprint, long[] row) {
+            // Zero marks an empty slot, and real joint rows always have the edge joint at bit zero
+            long key = fingerprint == 0 ? 1 : fingerprint;
+            if (2 * (size + 1) > fingerprints.length) {
+                grow();
+            }
+            int mask = fingerprints.length - 1;
+            for (int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask; ; slot = (slot + 1) & mask) {
+                if (fingerprints[slot] == key && Arrays.equals(rows, slot * words, (slot + 1) * words, row, 0, words)) {
+                    return false;
+                }
+                if (fingerprints[slot] == 0) {
+                    fingerprints[slot] = key;
+                    System.arraycopy(row, 0, rows, slot * words, words);
+                    size++;
+                    return true;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(fingerprints, 0);
+                size = 0;
+            }
+            enumerating = false;
+            cursorExtraHalfBricks = 0;
+            cursorBricks = 0;
+        }
+
+        private void grow() {
+            long[] previousFingerprints = fingerprints;
+            long[] previousRows = rows;
+            fingerprints = new long[previousFingerprints.length * 2];
+            rows = new long[fingerprints.length * words];
+            size = 0;
+            for (int slot = 0; slot < previousFingerprints.length; slot++) {
+                if (previousFingerprints[slot] != 0) {
+                    add(previousFingerprints[slot], Arrays.copyOfRange(previousRows, slot * words, (slot + 1) * words));
+                }
+            }
+        }
+    }
+
 
     public class FailedBondGenerationException extends RuntimeException {
         public FailedBondGenerationException(String message) {
@@ -0,0 +1,278 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.monumentaltakehome.wallbuilder.service.WildBondService.BrickType;
+
+// Draws random wild bond rows that pass the adjacent brick rules and avoid a set of forbidden joint positions,
+// without generating and rejecting invalid rows.
+// The valid rows form the paths of a small automaton over joint positions, whose state is the current run of half or
+// full bricks and the number of half bricks laid so far (up to the minimum). Counting paths backwards from the end of
+// the row gives, for every position and state, the number of ways to finish the row, so a row can be drawn brick by
+// brick with each choice weighted by how many valid rows follow it.
+// Like the random generator it replaces, rows with the fewest half bricks possible come first: rows are counted and
+// drawn uniformly per number of extra half bricks over that minimum.
+// Rows can also be enumerated in order, half bricks before full bricks, so a generator can try every row once its random
+// draws mostly repeat rows it has tried.
+// The tables are allocated once per wall and refilled for each row.
+final class WildRowSampler {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+
+    private final int rowWidth;
+    private final int minHalfBricks;
+    private final int maxHalfBricks;
+    private final int maxExtraHalfBricks;
+    private final int maxConsecutiveHalfBricks;
+    private final int maxConsecutiveFullBricks;
+    private final int runStates;
+    private final int states;
+    // Automaton transitions, the state after laying a half or a full brick in each state or -1 if that run is too long
+    private final int[] afterHalfBrick;
+    private final int[] afterFullBrick;
+
+    // Fewest half bricks needed to finish the row from each position and state
+    private final int[] halfBricksToFinish;
+    // Ways to finish the row with each number of extra half bricks, scaled per position so long rows do not overflow
+    private final double[] waysToFinish;
+    private final double[] positionScale;
+    // Position, state and extra half bricks left before each brick of an enumerated row
+    private final int[] trailPositions;
+    private final int[] trailStates;
+    private final int[] trailExtras;
+    private int preparedExtraHalfBricks;
+    private int fewestHalfBricks;
+    private double rowScale;
+
+    WildRowSampler(int bricksPerRow, int minHalfBricks, int maxHalfBricks, int maxExtraHalfBricks,
+            int maxConsecutiveHalfBricks, int maxConsecutiveFullBricks) {
+        // Widths are in half bricks, so there is a joint position at every step
+        this.rowWidth = 2 * bricksPerRow;
+        this.minHalfBricks = minHalfBricks;
+        this.maxHalfBricks = maxHalfBricks;
+        this.maxExtraHalfBricks = maxExtraHalfBricks;
+        this.maxConsecutiveHalfBricks = maxConsecutiveHalfBricks;
+        this.maxConsecutiveFullBricks = maxConsecutiveFullBricks;
+        // Run state 0 is the start of the row, then runs of 1 to max half bricks, then runs of 1 to max full bricks
+        this.runStates = 1 + maxConsecutiveHalfBricks + maxConsecutiveFullBricks;
+        this.states = runStates * (minHalfBricks + 1);
+        this.afterHalfBrick = new int[states];
+        this.afterFullBrick = new int[states];
+        for (int state = 0; state < states; state++) {
+            afterHalfBrick[state] = nextState(state, BrickType.HALF);
+            afterFullBrick[state] = nextState(state, BrickType.FULL);
+        }
+        this.halfBricksToFinish = new int[(rowWidth + 1) * states];
+        this.waysToFinish = new double[(rowWidth + 1) * states * (maxExtraHalfBricks + 1)];
+        this.positionScale = new double[rowWidth + 1];
+        this.trailPositions = new int[rowWidth];
+        this.trailStates = new int[rowWidth];
+        this.trailExtras = new int[rowWidth];
+    }
+
+    // Fills the tables for rows with no joint at the forbidden positions and up to the given number of extra half
+    // bricks. Most rows are drawn with the fewest half bricks, so the other counts are only filled in when needed.
+    void prepare(long[] forbidden, int extraHalfBricks) {
+        int levels = Math.min(extraHalfBricks, maxExtraHalfBricks) + 1;
+        int stride = maxExtraHalfBricks + 1;
+        for (int position = rowWidth; position >= 0; position--) {
+            // A forbidden joint position cannot be reached, the start of the row is checked below
+            boolean reachable = position == 0 || !isForbidden(forbidden, position);
+            for (int state = 0; state < states; state++) {
+                int cell = position * states + state;
+                if (!reachable) {
+                    halfBricksToFinish[cell] = UNREACHABLE;
+                } else if (position == rowWidth) {
+                    halfBricksToFinish[cell] = halfBricks(state) == minHalfBricks ? 0 : UNREACHABLE;
+                } else {
+                    halfBricksToFinish[cell] = Math.min(halfBricksAfter(position, state, BrickType.HALF), halfBricksAfter(position, state, BrickType.FULL));
+                }
+            }
+
+            double scale = 0;
+            for (int state = 0; state < states; state++) {
+                int cell = position * states + state;
+                int halfBrickExtra = UNREACHABLE;
+                int fullBrickExtra = UNREACHABLE;
+                if (halfBricksToFinish[cell] < UNREACHABLE && position < rowWidth) {
+                    halfBrickExtra = halfBricksAfter(position, state, BrickType.HALF) - halfBricksToFinish[cell];
+                    fullBrickExtra = halfBricksAfter(position, state, BrickType.FULL) - halfBricksToFinish[cell];
+                }
+                for (int extra = 0; extra < levels; extra++) {
+                    double ways = 0;
+                    if (position == rowWidth) {
+                        ways = extra == 0 && halfBricksToFinish[cell] == 0 ? 1 : 0;
+                    } else {
+                        if (extra >= halfBrickExtra) {
+                            ways += waysToFinish[((position + 1) * states + afterHalfBrick[state]) * stride + extra - halfBrickExtra];
+                        }
+                        if (extra >= fullBrickExtra) {
+                            ways += waysToFinish[((position + 2) * states + afterFullBrick[state]) * stride + extra - fullBrickExtra] / positionScale[position + 1];
+                        }
+                    }
+                    waysToFinish[cell * stride + extra] = ways;
+                    scale = Math.max(scale, ways);
+                }
+            }
+            positionScale[position] = scale > 0 ? scale : 1;
+            for (int state = 0; state < states; state++) {
+                for (int extra = 0; extra < levels; extra++) {
+                    waysToFinish[(position * states + state) * stride + extra] /= positionScale[position];
+                }
+            }
+        }
+
+        preparedExtraHalfBricks = levels - 1;
+        fewestHalfBricks = isForbidden(forbidden, 0) ? UNREACHABLE : halfBricksToFinish[0];
+        rowScale = 1;
+        for (int position = 0; position <= rowWidth; position++) {
+            rowScale *= positionScale[position];
+        }
+    }
+
+    // Number of rows with the given number of half bricks over the fewest possible, as a double since long rows have
+    // far more than fit in a long
+    double rowCount(int extraHalfBricks) {
+        if (fewestHalfBricks >= UNREACHABLE || extraHalfBricks > preparedExtraHalfBricks || fewestHalfBricks + extraHalfBricks > maxHalfBricks) {
+            return 0;
+        }
+        double rowCount = waysToFinish[extraHalfBricks] * rowScale;
+        // Scaling leaves rounding errors, and small counts are exact whole numbers
+        return rowCount > 0 ? Math.max(1, Math.rint(rowCount)) : 0;
+    }
+
+    // Draws one of the rows counted by rowCount, leaving its bricks in brickArray and its joints in jointRow,
+    // and returns the number of bricks
+    int sample(int extraHalfBricks, Random random, BrickType[] brickArray, long[] jointRow) {
+        if (rowCount(extraHalfBricks) == 0) {
+            throw new IllegalStateException(String.format("No rows with %s extra half bricks to sample", extraHalfBricks));
+        }
+        Arrays.fill(jointRow, 0);
+        jointRow[0] = 1;
+        int brickCount = 0;
+        int state = 0;
+        int extra = extraHalfBricks;
+        for (int position = 0; position < rowWidth; ) {
+            double halfWeight = waysAfter(position, state, BrickType.HALF, extra);
+            double fullWeight = waysAfter(position, state, BrickType.FULL, extra);
+
+            BrickType brickType = random.nextDouble() * (halfWeight + fullWeight) < halfWeight ? BrickType.HALF : BrickType.FULL;
+            brickArray[brickCount++] = brickType;
+            extra -= halfBricksAfter(position, state, brickType) - halfBricksToFinish[position * states + state];
+            state = brickType == BrickType.HALF ? afterHalfBrick[state] : afterFullBrick[state];
+            position += width(brickType);
+            jointRow[position >>> 6] |= 1L << position;
+        }
+        return brickCount;
+    }
+
+    // First of the rows counted by rowCount in enumeration order, left in brickArray and jointRow like a drawn row,
+    // returning the number of bricks or 0 if there are none
+    int firstRow(int extraHalfBricks, BrickType[] brickArray, long[] jointRow) {
+        if (rowCount(extraHalfBricks) == 0) {
+            return 0;
+        }
+        return completeRow(0, 0, 0, extraHalfBricks, null, brickArray, jointRow);
+    }
+
+    // Row after the one of brickCount bricks in brickArray, in the same order and with the same tables, or 0 after the
+    // last. The last half brick that could have been a full brick becomes one, and the rest of the row is laid afresh.
+    int nextRow(int extraHalfBricks, BrickType[] brickArray, int brickCount, long[] jointRow) {
+        int position = 0;
+        int state = 0;
+        int extra = extraHalfBricks;
+        for (int i = 0; i < brickCount; i++) {
+            trailPositions[i] = position;
+            trailStates[i] = state;
+            trailExtras[i] = extra;
+            extra -= halfBricksAfter(position, state, brickArray[i]) - halfBricksToFinish[position * states + state];
+            state = brickArray[i] == BrickType.HALF ? afterHalfBrick[state] : afterFullBrick[state];
+            position += width(brickArray[i]);
+        }
+        for (int i = brickCount - 1; i >= 0; i--) {
+            if (brickArray[i] == BrickType.HALF && waysAfter(trailPositions[i], trailStates[i], BrickType.FULL, trailExtras[i]) > 0) {
+                return completeRow(i, trailPositions[i], trailStates[i], trailExtras[i], BrickType.FULL, brickArray, jointRow);
+            }
+        }
+        return 0;
+    }
+
+    // Lays the given brick, if any, then the first brick that can still finish the row at every position
+    private int completeRow(int brickCount, int position, int state, int extra, BrickType firstBrick, BrickType[] brickArray, long[] jointRow) {
+        for (BrickType brickType = firstBrick; position < rowWidth; brickType = null) {
+            if (brickType == null) {
+                brickType = waysAfter(position, state, BrickType.HALF, extra) > 0 ? BrickType.HALF : BrickType.FULL;
+            }
+            brickArray[brickCount++] = brickType;
+            extra -= halfBricksAfter(position, state, brickType) - halfBricksToFinish[position * states + state];
+            state = brickType == BrickType.HALF ? afterHalfBrick[state] : afterFullBrick[state];
+            position += width(brickType);
+        }
+        Arrays.fill(jointRow, 0);
+        jointRow[0] = 1;
+        for (int i = 0, joint = 0; i < brickCount; i++) {
+            joint += width(brickArray[i]);
+            jointRow[joint >>> 6] |= 1L << joint;
+        }
+        return brickCount;
+    }
+
+    // Fewest half bricks needed to finish the row when laying the given brick next, including that brick
+    private int halfBricksAfter(int position, int state, BrickType brickType) {
+        int next = brickType == BrickType.HALF ? afterHalfBrick[state] : afterFullBrick[state];
+        int nextPosition = position + width(brickType);
+        if (next < 0 || nextPosition > rowWidth) {
+            return UNREACHABLE;
+        }
+        return (brickType == BrickType.HALF ? 1 : 0) + halfBricksToFinish[nextPosition * states + next];
+    }
+
+    // Ways to finish the row with the given extra half bricks when laying the given brick next, in the scale of the
+    // position after a half brick
+    private double waysAfter(int position, int state, BrickType brickType, int extraHalfBricks) {
+        int halfBricks = halfBricksAfter(position, state, brickType);
+        if (halfBricks >= UNREACHABLE) {
+            return 0;
+        }
+        int remainingExtra = extraHalfBricks - (halfBricks - halfBricksToFinish[position * states + state]);
+        if (remainingExtra < 0) {
+            return 0;
+        }
+        int nextPosition = position + width(brickType);
+        int next = brickType == BrickType.HALF ? afterHalfBrick[state] : afterFullBrick[state];
+        double ways = waysToFinish[(nextPosition * states + next) * (maxExtraHalfBricks + 1) + remainingExtra];
+        return brickType == BrickType.HALF ? ways : ways / positionScale[position + 1];
+    }
+
+    // State after laying a brick, or -1 if that would make too long a run
+    private int nextState(int state, BrickType brickType) {
+        int run = state % runStates;
+        int halfBricks = halfBricks(state);
+        if (brickType == BrickType.HALF) {
+            int halfRun = run >= 1 && run <= maxConsecutiveHalfBricks ? run : 0;
+            if (halfRun == maxConsecutiveHalfBricks) {
+                return -1;
+            }
+            return Math.min(halfBricks + 1, minHalfBricks) * runStates + halfRun + 1;
+        }
+        int fullRun = run > maxConsecutiveHalfBricks ? run - maxConsecutiveHalfBricks : 0;
+        if (fullRun == maxConsecutiveFullBricks) {
+            return -1;
+        }
+        return halfBricks * runStates + maxConsecutiveHalfBricks + fullRun + 1;
+    }
+
+    // Half bricks laid so far, counted up to the minimum a row needs
+    private int halfBricks(int state) {
+        return state / runStates;
+    }
+
+    private static int width(BrickType brickType) {
+        return brickType == BrickType.HALF ? 1 : 2;
+    }
+
+    private static boolean isForbidden(long[] forbidden, int position) {
+        return (forbidden[position >>> 6] & 1L << position) != 0;
+    }
+}
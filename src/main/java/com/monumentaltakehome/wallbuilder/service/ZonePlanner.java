@@ -0,0 +1,187 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.EnvelopeCoverageIndex;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.service.WallService.Stride;
+
+// Plans a wall for several robots building at once. The wall is split into zones of whole courses, one per robot from
+// the bottom up, and the robots build in steps: in each step every robot takes a greedy stride in its own zone, planned
+// from the bricks placed in earlier steps only, so strides of the same step never depend on each other and can run at
+// the same time. A robot with nothing placeable in reach waits for the step.
+// Every course is built from the left, so zones side by side along the wall would wait for the whole course to their
+// left. Stacked zones only wait for the foundations below, so each robot follows the one below it along the wall a
+// clearance behind, and throughput grows with the robots on long walls.
+// Envelopes of the same step keep at least the clearance between them, with lower robots choosing first.
+public class ZonePlanner {
+
+    // How far behind the leftmost placeable brick of a zone, in envelope widths, a robot with a robot above it builds
+    public static final int TRAILING_ENVELOPES = 3;
+
+    private final WallLayout layout;
+    private final int envelopeWidth;
+    private final int envelopeHeight;
+    private final int maxX;
+    private final int clearance;
+    private final PlanMetrics metrics;
+    // Id of the first brick of each zone, then the layout size
+    private final int[] zoneStarts;
+
+    private final BrickDependencyGraph graph;
+    private final EnvelopeCoverageIndex[] coverageIndexes;
+
+    public ZonePlanner(WallLayout layout, int wallWidth, int envelopeWidth, int envelopeHeight, int robots, int clearance,
+            boolean onlyPlaceAfterLeftNeigbour, PlanMetrics metrics) {
+        int[] rowStarts = layout.rowStarts();
+        if (layout.rows() < robots) {
+            throw new IllegalArgumentException(String.format("A wall of %s courses is too low to split between %s robots", layout.rows(), robots));
+        }
+        this.layout = layout;
+        this.envelopeWidth = envelopeWidth;
+        this.envelopeHeight = envelopeHeight;
+        this.maxX = Math.max(0, wallWidth - envelopeWidth);
+        this.clearance = clearance;
+        this.metrics = metrics;
+        this.zoneStarts = new int[robots + 1];
+        this.coverageIndexes = new EnvelopeCoverageIndex[robots];
+        for (int robot = 0; robot < robots; robot++) {
+            zoneStarts[robot] = rowStarts[layout.rows() * robot / robots];
+        }
+        zoneStarts[robots] = layout.size();
+        for (int robot = 0; robot < robots; robot++) {
+            int ceilingY = robot + 1 < robots ? layout.y(zoneStarts[robot + 1]) - 1 : Integer.MAX_VALUE;
+            coverageIndexes[robot] = new EnvelopeCoverageIndex(layout, envelopeWidth, envelopeHeight, ceilingY);
+        }
+        this.graph = new BrickDependencyGraph(layout, onlyPlaceAfterLeftNeigbour);
+    }
+
+    public int robots() {
+        return zoneStarts.length - 1;
+    }
+
+    // The lowest course of the robot's zone, in layout units
+    public int zoneFloor(int robot) {
+        return layout.y(zoneStarts[robot]);
+    }
+
+    // Strides are numbered across all robots in build order, and strides of the same step run at the same time
+    public void plan(Consumer<RobotStride> strideConsumer) {
+        int strideCount = 0;
+        for (int step = 0; graph.checkpoint() < graph.size(); step++) {
+            int stepStart = graph.checkpoint();
+            int[][] strides = new int[robots()][];
+            List<int[]> envelopes = new ArrayList<>();
+            for (int robot = 0; robot < robots(); robot++) {
+                OptionalInt lowestBrick = lowestBrickInReach(robot, envelopes);
+                if (lowestBrick.isEmpty()) {
+                    continue;
+                }
+                int buildEnvY = layout.y(lowestBrick.getAsInt());
+                long searchStart = System.nanoTime();
+                int[] candidateXs = candidateXs(freeXs(buildEnvY, envelopes), buildEnvY);
+                int buildEnvX = EnvelopeCandidateSearch.findOptimumBuildEnvX(candidateXs, buildEnvY, graph, coverageIndexes[robot], 1);
+                PlanMetrics.record(metrics.candidateSearch, searchStart);
+
+                graph.placeAllWithin(coverageIndexes[robot].coverage(buildEnvX, buildEnvY));
+                strides[robot] = new int[graph.checkpoint() - stepStart];
+                for (int i = 0; i < strides[robot].length; i++) {
+                    strides[robot][i] = graph.placementAt(stepStart + i);
+                }
+                // Higher robots plan as if this stride had not been placed yet
+                graph.rollback(stepStart);
+                envelopes.add(new int[] {buildEnvX, buildEnvY});
+            }
+
+            boolean placedAny = false;
+            for (int robot = 0; robot < robots(); robot++) {
+                if (strides[robot] == null) {
+                    continue;
+                }
+                for (int id : strides[robot]) {
+                    graph.place(id);
+                }
+                metrics.bricksPerStride.record(strides[robot].length);
+                strideConsumer.accept(new RobotStride(robot, step, new Stride(strideCount++, strides[robot])));
+                placedAny = true;
+            }
+            if (!placedAny) {
+                throw new IllegalStateException("Unable to place the remaining bricks with the robots' zones");
+            }
+        }
+        metrics.stridesPerWall.record(strideCount);
+    }
+
+    // The lowest placeable brick of the zone that an envelope clear of this step's envelopes can reach. Below the top
+    // zone only bricks within TRAILING_ENVELOPES envelope widths of the leftmost count, since taking the lowest course
+    // overall would leave the top courses of the zone until the rest was built, holding up the robot above.
+    private OptionalInt lowestBrickInReach(int robot, List<int[]> envelopes) {
+        List<Integer> inReach = new ArrayList<>();
+        int leftmostX = Integer.MAX_VALUE;
+        for (OptionalInt id = graph.nextPlaceableBrick(zoneStarts[robot]); id.isPresent() && id.getAsInt() < zoneStarts[robot + 1];
+                id = graph.nextPlaceableBrick(id.getAsInt() + 1)) {
+            if (isInReach(layout.x(id.getAsInt()), layout.y(id.getAsInt()), envelopes)) {
+                inReach.add(id.getAsInt());
+                leftmostX = Math.min(leftmostX, layout.x(id.getAsInt()));
+            }
+        }
+        // Bricks are ordered by y, so the first one in the trailing envelopes is on the lowest course
+        for (int id : inReach) {
+            if (robot + 1 == robots() || layout.x(id) <= leftmostX + TRAILING_ENVELOPES * envelopeWidth) {
+                return OptionalInt.of(id);
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    private boolean isInReach(int x, int y, List<int[]> envelopes) {
+        for (int[] free : freeXs(y, envelopes)) {
+            if (Math.max(free[0], x - envelopeWidth) <= Math.min(free[1], x)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Ascending ranges of envelope Xs at buildEnvY that keep the clearance from this step's envelopes
+    private List<int[]> freeXs(int buildEnvY, List<int[]> envelopes) {
+        List<int[]> blocked = new ArrayList<>();
+        for (int[] envelope : envelopes) {
+            if (buildEnvY < envelope[1] + envelopeHeight + clearance && envelope[1] < buildEnvY + envelopeHeight + clearance) {
+                blocked.add(new int[] {envelope[0] - envelopeWidth - clearance, envelope[0] + envelopeWidth + clearance});
+            }
+        }
+        blocked.sort((a, b) -> Integer.compare(a[0], b[0]));
+        List<int[]> free = new ArrayList<>();
+        int from = 0;
+        for (int[] range : blocked) {
+            if (range[0] >= from) {
+                free.add(new int[] {from, Math.min(range[0], maxX)});
+            }
+            from = Math.max(from, range[1]);
+        }
+        free.add(new int[] {from, maxX});
+        free.removeIf(range -> range[0] > range[1]);
+        return free;
+    }
+
+    private int[] candidateXs(List<int[]> freeXs, int buildEnvY) {
+        int[][] xs = new int[freeXs.size()][];
+        int count = 0;
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = new EnvelopeCandidates(envelopeWidth, envelopeHeight, freeXs.get(i)[0], freeXs.get(i)[1]).xs(graph, buildEnvY);
+            count += xs[i].length;
+        }
+        int[] candidateXs = new int[count];
+        for (int i = 0, at = 0; i < xs.length; at += xs[i].length, i++) {
+            System.arraycopy(xs[i], 0, candidateXs, at, xs[i].length);
+        }
+        return candidateXs;
+    }
+
+    public record RobotStride(int robot, int step, Stride stride) {}
+}
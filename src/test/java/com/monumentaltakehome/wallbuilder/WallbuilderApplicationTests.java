@@ -3,7 +3,7 @@ package com.monumentaltakehome.wallbuilder;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "wallbuilder.plan-store.directory=target/plans")
 class WallbuilderApplicationTests {
 
 	@Test
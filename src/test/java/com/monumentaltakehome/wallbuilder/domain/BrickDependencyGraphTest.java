@@ -0,0 +1,59 @@
+package com.monumentaltakehome.wallbuilder.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.service.FlemishBondService;
+
+public class BrickDependencyGraphTest {
+
+    private FlemishBondService wallService = new FlemishBondService();
+
+    @Test
+    public void testPlaceabilityMatchesBrickScan() {
+        WallLayout layout = wallService.getWallLayout();
+        List<Brick> allBricks = new ArrayList<>(layout.bricks());
+        BrickDependencyGraph graph = new BrickDependencyGraph(layout, true);
+
+        while (graph.lowestPlaceableBrick().isPresent()) {
+            for (int id = 0; id < allBricks.size(); id++) {
+                assertThat(graph.isPlaceable(id)).isEqualTo(allBricks.get(id).isPlaceable(allBricks, true));
+            }
+            int id = graph.lowestPlaceableBrick().getAsInt();
+            graph.place(id);
+            allBricks.set(id, allBricks.get(id).place());
+        }
+        assertThat(allBricks).allMatch(Brick::placed);
+    }
+
+    @Test
+    public void testRollbackRestoresPlaceability() {
+        BrickDependencyGraph graph = new BrickDependencyGraph(wallService.getWallLayout(), true);
+        graph.place(0);
+        int checkpoint = graph.checkpoint();
+
+        for (int i = 0; i < 20; i++) {
+            graph.place(graph.lowestPlaceableBrick().getAsInt());
+        }
+        graph.rollback(checkpoint);
+
+        BrickDependencyGraph expected = new BrickDependencyGraph(wallService.getWallLayout(), true);
+        expected.place(0);
+        for (int id = 0; id < graph.size(); id++) {
+            assertThat(graph.isPlaced(id)).isEqualTo(expected.isPlaced(id));
+            assertThat(graph.isPlaceable(id)).isEqualTo(expected.isPlaceable(id));
+        }
+    }
+
+    @Test
+    public void testPlaceRejectsUnsupportedBrick() {
+        BrickDependencyGraph graph = new BrickDependencyGraph(wallService.getWallLayout(), true);
+
+        assertThatThrownBy(() -> graph.place(graph.size() - 1)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,20 @@
+package com.monumentaltakehome.wallbuilder.domain;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+public class WallGeometryTest {
+
+    @Test
+    public void testDimensionsOutsideTheLimitsAreRejected() {
+        assertThatCode(() -> new WallGeometry(WallGeometry.MAXIMUM_WALL_LENGTH, WallGeometry.MAXIMUM_WALL_HEIGHT,
+            WallGeometry.MAXIMUM_ENVELOPE_SIZE, WallGeometry.MAXIMUM_ENVELOPE_SIZE)).doesNotThrowAnyException();
+
+        assertThatThrownBy(() -> new WallGeometry(200_000_000, 2000, 800, 1300)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new WallGeometry(2300, 1e12, 800, 1300)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new WallGeometry(2300, 2000, 50_000, 1300)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new WallGeometry(2300, 2000, 800, Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
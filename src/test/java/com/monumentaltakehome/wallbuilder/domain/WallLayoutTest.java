@@ -0,0 +1,66 @@
+package com.monumentaltakehome.wallbuilder.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+public class WallLayoutTest {
+
+    @Test
+    public void testUnitConversionIsExact() {
+        assertThat(WallLayout.toUnits(62.5)).isEqualTo(625);
+        assertThat(WallLayout.toMillimetres(625)).isEqualTo(62.5);
+        assertThatThrownBy(() -> WallLayout.toUnits(0.25)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testBuilderNumbersColumnsPerRow() {
+        WallLayout layout = new WallLayout.Builder()
+            .addBrick(1, 0, 625, 1000, 500)
+            .addBrick(1, 1100, 625, 2100, 500)
+            .addBrick(2, 0, 1250, 2100, 500)
+            .build();
+
+        assertThat(layout.size()).isEqualTo(3);
+        assertThat(layout.columnNumber(1)).isEqualTo(1);
+        assertThat(layout.columnNumber(2)).isEqualTo(0);
+        assertThat(layout.brick(1, false)).isEqualTo(new Brick(110, 62.5, 210, 50, false, 1, 1));
+    }
+
+    @Test
+    public void testBuilderRejectsOverlappingBricks() {
+        WallLayout.Builder builder = new WallLayout.Builder().addBrick(1, 0, 625, 1000, 500);
+
+        assertThatThrownBy(() -> builder.addBrick(1, 500, 625, 1000, 500)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testIndexOfFindsBricksByPosition() {
+        WallLayout layout = new WallLayout.Builder()
+            .addBrick(1, 0, 625, 1000, 500)
+            .addBrick(1, 1100, 625, 2100, 500)
+            .addBrick(2, 0, 1250, 2100, 500)
+            .build();
+
+        assertThat(layout.indexOf(1100, 625)).isEqualTo(1);
+        assertThat(layout.indexOf(0, 1250)).isEqualTo(2);
+        assertThat(layout.indexOf(500, 625)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testRowStartsAndFirstBrickAtOrAbove() {
+        WallLayout layout = new WallLayout.Builder()
+            .addBrick(1, 0, 625, 1000, 500)
+            .addBrick(1, 1100, 625, 2100, 500)
+            .addBrick(2, 0, 1250, 2100, 500)
+            .build();
+
+        assertThat(layout.rowStarts()).containsExactly(0, 2, 3);
+        assertThat(layout.rows()).isEqualTo(2);
+        assertThat(layout.firstBrickAtOrAbove(0)).isEqualTo(0);
+        assertThat(layout.firstBrickAtOrAbove(626)).isEqualTo(2);
+        assertThat(layout.firstBrickAtOrAbove(1251)).isEqualTo(3);
+        assertThat(new WallLayout.Builder().build().rowStarts()).containsExactly(0);
+    }
+}
@@ -0,0 +1,53 @@
+package com.monumentaltakehome.wallbuilder.response;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.service.FlemishBondService;
+import com.monumentaltakehome.wallbuilder.service.StretcherBondService;
+import com.monumentaltakehome.wallbuilder.service.WildBondService;
+
+public class WallPlanCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        for (WallDto wall : List.of(new StretcherBondService().generateWall(), new FlemishBondService().generateWall(),
+                new WildBondService().generateWall(new WildBondService().defaultGeometry(), 1))) {
+            assertThat(WallPlanCodec.decode(WallPlanCodec.encode(wall))).isEqualTo(wall);
+        }
+        assertThat(WallPlanCodec.decode(WallPlanCodec.encode(new WallDto(List.of())))).isEqualTo(new WallDto(List.of()));
+    }
+
+    @Test
+    public void testEncodingIsAnOrderOfMagnitudeSmallerThanJson() throws Exception {
+        WallDto wall = new StretcherBondService().generateWall(new WallGeometry(20000.0, 2000.0, 800.0, 1300.0));
+
+        byte[] json = new ObjectMapper().writeValueAsBytes(wall);
+        byte[] binary = WallPlanCodec.encode(wall);
+
+        assertThat(binary.length * 10).isLessThan(json.length);
+    }
+
+    @Test
+    public void testRejectsMalformedInput() {
+        byte[] encoded = WallPlanCodec.encode(new StretcherBondService().generateWall());
+
+        assertThatThrownBy(() -> WallPlanCodec.decode(new byte[] {'{', '}'})).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> WallPlanCodec.decode(Arrays.copyOf(encoded, encoded.length - 1))).isInstanceOf(IllegalArgumentException.class);
+        // A stride count, and a stride size, far larger than the bytes that follow could hold
+        assertThatThrownBy(() -> WallPlanCodec.decode(new byte[] {'W', 'P', 'L', '1', 10, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x7f}))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> WallPlanCodec.decode(new byte[] {'W', 'P', 'L', '1', 10, 1, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x7f}))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> WallPlanCodec.encode(new WallDto(List.of(new BrickDto(0, 0, 210, 50, 1)))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
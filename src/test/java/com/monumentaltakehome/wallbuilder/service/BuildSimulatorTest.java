@@ -0,0 +1,157 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BuildTimings;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.service.BuildSimulator.CriticalSegment;
+import com.monumentaltakehome.wallbuilder.service.BuildSimulator.Simulation;
+import com.monumentaltakehome.wallbuilder.service.WallService.Stride;
+import com.monumentaltakehome.wallbuilder.service.ZonePlanner.RobotStride;
+
+public class BuildSimulatorTest {
+
+    private static final WallGeometry GEOMETRY = new WallGeometry(6000, 2000, 800, 1300);
+
+    @Test
+    public void testOneRobotBuildsInTheSumOfItsActivities() {
+        StretcherBondService wallService = new StretcherBondService();
+        WallLayout layout = wallService.getWallLayout(GEOMETRY);
+        List<RobotStride> strides = strides(wallService, layout, false);
+        BuildSimulator simulator = new BuildSimulator(layout, true, MotionCostModel.STRAIGHT_LINE, BuildTimings.DEFAULT);
+
+        Simulation simulation = simulator.simulate(strides);
+
+        double expected = 0;
+        for (int s = 0; s < strides.size(); s++) {
+            int[] brickIds = strides.get(s).stride().brickIds();
+            expected += BuildTimings.DEFAULT.relocationSeconds();
+            if (s > 0) {
+                int[] previousIds = strides.get(s - 1).stride().brickIds();
+                // The envelope moves between the lower left corners of the strides' bricks
+                double distance = Math.hypot(min(brickIds, layout::x) - min(previousIds, layout::x), min(brickIds, layout::y) - min(previousIds, layout::y));
+                expected += WallLayout.toMillimetres((int) Math.round(distance)) / BuildTimings.DEFAULT.relocationSpeed();
+            }
+            for (int i = 0; i < brickIds.length; i++) {
+                expected += BuildTimings.DEFAULT.placementSeconds() + handlingSeconds(layout.width(brickIds[i]));
+                if (i > 0) {
+                    int travel = MotionCostModel.STRAIGHT_LINE.cost(layout, brickIds[i - 1], brickIds[i]);
+                    expected += WallLayout.toMillimetres(travel) / BuildTimings.DEFAULT.armSpeed();
+                }
+            }
+        }
+        assertThat(simulation.eta()).isCloseTo(expected, offset(1e-6));
+        assertThat(simulation.timeline()).hasSize(strides.size());
+        assertThat(simulation.robots()).singleElement()
+            .satisfies(robot -> assertThat(robot.laying() + robot.relocating() + robot.waiting()).isCloseTo(simulation.eta(), offset(1e-6)));
+        assertCriticalPathSpansTheBuild(simulation);
+    }
+
+    @Test
+    public void testSequencedStridesBuildFaster() {
+        for (WallService wallService : List.of(new StretcherBondService(), new FlemishBondService())) {
+            WallLayout layout = wallService.getWallLayout(GEOMETRY);
+            BuildSimulator simulator = new BuildSimulator(layout, true, MotionCostModel.STRAIGHT_LINE, BuildTimings.DEFAULT);
+
+            Simulation planned = simulator.simulate(strides(wallService, layout, false));
+            Simulation sequenced = simulator.simulate(strides(wallService, layout, true));
+
+            assertThat(sequenced.eta()).isLessThan(planned.eta());
+        }
+    }
+
+    @Test
+    public void testRobotsInZonesBuildFasterThanOne() {
+        WildBondService wallService = new WildBondService();
+        WallLayout layout = wallService.getWallLayout(GEOMETRY, new Random(7));
+        BuildSimulator simulator = new BuildSimulator(layout, true, MotionCostModel.STRAIGHT_LINE, BuildTimings.DEFAULT);
+        List<RobotStride> zoneStrides = new ArrayList<>();
+        new ZonePlanner(layout, WallLayout.toUnits(wallService.wallWidth(GEOMETRY)), GEOMETRY.envelopeWidthUnits(), GEOMETRY.envelopeHeightUnits(), 3,
+            WallLayout.toUnits(200), true, PlanMetrics.of(wallService.bondType())).plan(zoneStrides::add);
+
+        Simulation oneRobot = simulator.simulate(strides(wallService, layout, false));
+        Simulation threeRobots = simulator.simulate(zoneStrides);
+
+        assertThat(threeRobots.eta()).isLessThan(oneRobot.eta());
+        assertThat(threeRobots.robots()).hasSize(3)
+            .allSatisfy(robot -> assertThat(robot.utilisation()).isBetween(0.0, 1.0));
+        assertCriticalPathSpansTheBuild(threeRobots);
+    }
+
+    @Test
+    public void testBrickPlacedBeforeItsFoundationsIsRejected() {
+        StretcherBondService wallService = new StretcherBondService();
+        WallLayout layout = wallService.getWallLayout(GEOMETRY);
+        List<RobotStride> strides = new ArrayList<>(strides(wallService, layout, false));
+        BuildSimulator simulator = new BuildSimulator(layout, true, MotionCostModel.STRAIGHT_LINE, BuildTimings.DEFAULT);
+        strides.add(0, new RobotStride(0, -1, strides.remove(strides.size() - 1).stride()));
+
+        assertThatThrownBy(() -> simulator.simulate(strides))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("is placed before the brick at");
+    }
+
+    @Test
+    public void testSimulationIsCheapEnoughToRankManyPlans() {
+        FlemishBondService wallService = new FlemishBondService();
+        WallGeometry geometry = new WallGeometry(20000, 4000, 800, 1300);
+        WallLayout layout = wallService.getWallLayout(geometry);
+        List<RobotStride> strides = new ArrayList<>();
+        wallService.createPlanner(layout, geometry).plan(stride -> strides.add(new RobotStride(0, strides.size(), stride)));
+        BuildSimulator simulator = new BuildSimulator(layout, true, MotionCostModel.STRAIGHT_LINE, BuildTimings.DEFAULT);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            simulator.simulate(strides);
+        }
+
+        // A few milliseconds a simulation at most, even on a slow build machine
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(5000);
+    }
+
+    // The critical path ends at the ETA, and each segment starts when the one before it finishes or later
+    private static void assertCriticalPathSpansTheBuild(Simulation simulation) {
+        List<CriticalSegment> path = simulation.criticalPath();
+        assertThat(path).isNotEmpty();
+        assertThat(path.get(0).start()).isZero();
+        assertThat(path.get(path.size() - 1).finish()).isEqualTo(simulation.eta());
+        for (int i = 1; i < path.size(); i++) {
+            assertThat(path.get(i).start()).isGreaterThanOrEqualTo(path.get(i - 1).finish());
+        }
+    }
+
+    private static int min(int[] brickIds, IntUnaryOperator coordinate) {
+        return Arrays.stream(brickIds).map(coordinate).min().orElseThrow();
+    }
+
+    private static double handlingSeconds(int widthUnits) {
+        return switch (BrickSize.of(widthUnits)) {
+            case FULL -> BuildTimings.DEFAULT.fullHandlingSeconds();
+            case HALF -> BuildTimings.DEFAULT.halfHandlingSeconds();
+            case THREE_QUARTER -> BuildTimings.DEFAULT.threeQuarterHandlingSeconds();
+            case QUEEN_CLOSER -> BuildTimings.DEFAULT.queenCloserHandlingSeconds();
+        };
+    }
+
+    // The planner's strides for one robot, one step each
+    private static List<RobotStride> strides(WallService wallService, WallLayout layout, boolean sequenced) {
+        StrideSequencer sequencer = new StrideSequencer(layout, true, MotionCostModel.STRAIGHT_LINE, PlanMetrics.of(wallService.bondType()));
+        List<RobotStride> strides = new ArrayList<>();
+        wallService.createPlanner(layout, GEOMETRY).plan(stride -> {
+            Stride planned = sequenced ? sequencer.sequence(stride) : stride;
+            strides.add(new RobotStride(0, strides.size(), planned));
+        });
+        return strides;
+    }
+}
@@ -0,0 +1,31 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.EnvelopeCoverageIndex;
+
+public class EnvelopeCandidateSearchTest {
+
+    private StretcherBondService wallService = new StretcherBondService();
+
+    @Test
+    public void testParallelSearchMatchesSerialSearch() {
+        BrickDependencyGraph graph = new BrickDependencyGraph(wallService.getWallLayout(), true);
+        EnvelopeCoverageIndex coverageIndex = new EnvelopeCoverageIndex(graph.layout(), WallService.BUILD_ENV_WIDTH_UNITS, WallService.BUILD_ENV_HEIGHT_UNITS);
+        int[] candidateXs = IntStream.range(0, 30).map(i -> i * 500).toArray();
+
+        while (graph.lowestPlaceableBrick().isPresent()) {
+            int y = graph.layout().y(graph.lowestPlaceableBrick().getAsInt());
+            int serialX = EnvelopeCandidateSearch.findOptimumBuildEnvX(candidateXs, y, graph, coverageIndex, 1);
+            int parallelX = EnvelopeCandidateSearch.findOptimumBuildEnvX(candidateXs, y, graph, coverageIndex, 4);
+
+            assertThat(parallelX).isEqualTo(serialX);
+            graph.place(graph.lowestPlaceableBrick().getAsInt());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.EnvelopeCoverageIndex;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
+public class EnvelopeCandidatesTest {
+
+    @Test
+    public void testEventPointsFindTheLargestStride() {
+        assertEventPointsFindTheLargestStride(new StretcherBondService());
+        assertEventPointsFindTheLargestStride(new FlemishBondService());
+    }
+
+    // Brick edges lie on a 10 mm grid, so a search over every 10 mm finds the largest stride at each course
+    private void assertEventPointsFindTheLargestStride(WallService wallService) {
+        WallLayout layout = wallService.getWallLayout();
+        BrickDependencyGraph graph = new BrickDependencyGraph(layout, true);
+        EnvelopeCoverageIndex coverageIndex = new EnvelopeCoverageIndex(layout, WallService.BUILD_ENV_WIDTH_UNITS, WallService.BUILD_ENV_HEIGHT_UNITS);
+        int maxX = WallLayout.toUnits(wallService.wallWidth()) - WallService.BUILD_ENV_WIDTH_UNITS;
+        EnvelopeCandidates candidates = new EnvelopeCandidates(WallService.BUILD_ENV_WIDTH_UNITS, WallService.BUILD_ENV_HEIGHT_UNITS, 0, maxX);
+        int[] everyXs = IntStream.rangeClosed(0, maxX / 100).map(i -> i * 100).toArray();
+
+        while (graph.lowestPlaceableBrick().isPresent()) {
+            int y = layout.y(graph.lowestPlaceableBrick().getAsInt());
+            int[] xs = candidates.xs(graph, y);
+            int eventX = EnvelopeCandidateSearch.findOptimumBuildEnvX(xs, y, graph, coverageIndex, 1);
+            int everyX = EnvelopeCandidateSearch.findOptimumBuildEnvX(everyXs, y, graph, coverageIndex, 1);
+
+            assertThat(xs).isSorted().doesNotHaveDuplicates().hasSizeLessThan(everyXs.length);
+            assertThat(strideSize(graph, coverageIndex, eventX, y)).isEqualTo(strideSize(graph, coverageIndex, everyX, y));
+            graph.placeAllWithin(coverageIndex.coverage(eventX, y));
+        }
+    }
+
+    private static int strideSize(BrickDependencyGraph graph, EnvelopeCoverageIndex coverageIndex, int x, int y) {
+        int checkpoint = graph.checkpoint();
+        int strideSize = graph.placeAllWithin(coverageIndex.coverage(x, y));
+        graph.rollback(checkpoint);
+        return strideSize;
+    }
+}
@@ -0,0 +1,227 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class JointPatternHistoryTest {
+
+    @Test
+    public void testChecksMatchJointIndexArrays() {
+        Random random = new Random(7);
+        // Short rows fit in a single word, long rows span several
+        for (int jointPositions : new int[] {19, 63, 64, 65, 131}) {
+            List<int[]> existingRows = new ArrayList<>();
+            JointPatternHistory history = new JointPatternHistory(40, jointPositions);
+            long[] stepJoints = new long[history.words()];
+            long[] teethJoints = new long[history.words()];
+            for (int rowNumber = 0; rowNumber < 40; rowNumber++) {
+                history.forbiddenJoints(stepJoints, true, false);
+                history.forbiddenJoints(teethJoints, false, true);
+                for (int candidate = 0; candidate < 200; candidate++) {
+                    int[] newRow = randomJointRow(jointPositions, random);
+                    long[] jointRow = toJointRow(newRow, history.words());
+
+                    assertThat(avoids(jointRow, stepJoints)).isEqualTo(rowPassesStaggeredStepCheck(newRow, existingRows));
+                    assertThat(avoids(jointRow, teethJoints)).isEqualTo(rowPassesFallingTeethCheck(newRow, existingRows));
+                }
+                int[] row = randomJointRow(jointPositions, random);
+                existingRows.add(row);
+                history.push(toJointRow(row, history.words()));
+            }
+        }
+    }
+
+    @Test
+    public void testPopRestoresEarlierRows() {
+        JointPatternHistory history = new JointPatternHistory(10, 19);
+        long[] row = {0b1010101010101010101L};
+        for (int i = 0; i < 8; i++) {
+            history.push(row);
+        }
+        history.pop();
+        history.pop();
+        long[] forbidden = new long[1];
+
+        assertThat(history.size()).isEqualTo(6);
+        history.forbiddenJoints(forbidden, true, false);
+        assertThat(avoids(row, forbidden)).isTrue();
+        history.forbiddenJoints(forbidden, false, true);
+        assertThat(avoids(row, forbidden)).isFalse();
+    }
+
+    private static boolean avoids(long[] jointRow, long[] forbidden) {
+        for (int w = 0; w < jointRow.length; w++) {
+            if ((jointRow[w] & forbidden[w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Dense joint rows so that the patterns are actually hit, with joints always at both edges
+    private static int[] randomJointRow(int jointPositions, Random random) {
+        int[] row = new int[jointPositions];
+        for (int i = 0; i < jointPositions; i++) {
+            row[i] = i == 0 || i == jointPositions - 1 || random.nextInt(10) < 8 ? 1 : 0;
+        }
+        return row;
+    }
+
+    private static long[] toJointRow(int[] jointIndexArray, int words) {
+        long[] jointRow = new long[words];
+        for (int i = 0; i < jointIndexArray.length; i++) {
+            if (jointIndexArray[i] == 1) {
+                jointRow[i >>> 6] |= 1L << i;
+            }
+        }
+        return jointRow;
+    }
+
+    // The checks as written against lists of joint index arrays, before they moved to bitmasks
+
+    private static boolean rowPassesStaggeredStepCheck(int[] newRow, List<int[]> existingRows) {
+        int numberOfExistingRows = existingRows.size();
+        boolean oddRow = numberOfExistingRows % 2 == 0; // odd considering 1st row as odd (index 0)
+        if (numberOfExistingRows >= 7 && newRow.length >= 4) {
+            if (!rowPassesLeftStepCheck(newRow, existingRows, oddRow, numberOfExistingRows)) {
+                return false;
+            }
+            if (!rowPassesRightStepCheck(newRow, existingRows, oddRow, numberOfExistingRows)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean rowPassesLeftStepCheck(int[] newRow, List<int[]> existingRows, boolean oddRow, int numberOfExistingRows) {
+        for (int i = 3; i < newRow.length; i++) {
+            List<Integer> leftStepJointPositions = new ArrayList<>();
+            if (oddRow) {
+                leftStepJointPositions.add(newRow[i]);
+                leftStepJointPositions.add(existingRows.getLast()[i]);
+                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i-1]);
+                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i-1]);
+                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i-2]);
+                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i-2]);
+                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i-3]);
+            } else {
+                leftStepJointPositions.add(newRow[i]);
+                leftStepJointPositions.add(existingRows.getLast()[i-1]);
+                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i-1]);
+                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i-2]);
+                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i-2]);
+                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i-3]);
+                leftStepJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i-3]);
+            }
+            if (!leftStepJointPositions.stream().anyMatch(joint -> joint == 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean rowPassesRightStepCheck(int[] newRow, List<int[]> existingRows, boolean oddRow, int numberOfExistingRows) {
+        for (int i = 0; i < newRow.length-3; i++) {
+            List<Integer> rightStepJointPositions = new ArrayList<>();
+            if (oddRow) {
+                rightStepJointPositions.add(newRow[i]);
+                rightStepJointPositions.add(existingRows.getLast()[i+1]);
+                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i+1]);
+                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i+2]);
+                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i+2]);
+                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i+3]);
+                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i+3]);
+            } else {
+                rightStepJointPositions.add(newRow[i]);
+                rightStepJointPositions.add(existingRows.getLast()[i]);
+                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i+1]);
+                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i+1]);
+                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i+2]);
+                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i+2]);
+                rightStepJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i+3]);
+            }
+            if (!rightStepJointPositions.stream().anyMatch(joint -> joint == 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean rowPassesFallingTeethCheck(int[] newRow, List<int[]> existingRows) {
+        int numberOfExistingRows = existingRows.size();
+        boolean oddRow = numberOfExistingRows % 2 == 0; // odd considering 1st row as odd (index 0)
+
+        if (numberOfExistingRows >= 6 && newRow.length >= 4) {
+            //Check left teeth
+            if (!rowPassesLeftTeethCheck(newRow, existingRows, oddRow, numberOfExistingRows)) {
+                return false;
+            }
+            //Check right teeth
+            if (!rowPassesRightTeethCheck(newRow, existingRows, oddRow, numberOfExistingRows)) {
+                return false;
+            }
+
+        }
+        return true;
+    }
+
+    private static boolean rowPassesLeftTeethCheck(int[] newRow, List<int[]> existingRows, boolean oddRow, int numberOfExistingRows) {
+        for (int i = 1; i < newRow.length-1; i++) {
+            List<Integer> leftTeethJointPositions = new ArrayList<>();
+            if (oddRow) {
+                leftTeethJointPositions.add(newRow[i]);
+                leftTeethJointPositions.add(existingRows.getLast()[i]);
+                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i]);
+                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i]);
+                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i]);
+                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i]);
+                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i]);
+            } else {
+                leftTeethJointPositions.add(newRow[i]);
+                leftTeethJointPositions.add(existingRows.getLast()[i-1]);
+                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i]);
+                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i-1]);
+                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i]);
+                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i-1]);
+                leftTeethJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i]);
+            }
+            if (!leftTeethJointPositions.stream().anyMatch(joint -> joint == 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean rowPassesRightTeethCheck(int[] newRow, List<int[]> existingRows, boolean oddRow, int numberOfExistingRows) {
+        for (int i = 1; i < newRow.length-1; i++) {
+            List<Integer> rightTeethJointPositions = new ArrayList<>();
+            if (oddRow) {
+                rightTeethJointPositions.add(newRow[i]);
+                rightTeethJointPositions.add(existingRows.getLast()[i+1]);
+                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i]);
+                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i+1]);
+                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i]);
+                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i+1]);
+                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i]);
+            } else {
+                rightTeethJointPositions.add(newRow[i]);
+                rightTeethJointPositions.add(existingRows.getLast()[i]);
+                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 2)[i]);
+                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 3)[i]);
+                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 4)[i]);
+                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 5)[i]);
+                rightTeethJointPositions.add(existingRows.get(numberOfExistingRows - 6)[i]);
+            }
+
+            if (!rightTeethJointPositions.stream().anyMatch(joint -> joint == 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
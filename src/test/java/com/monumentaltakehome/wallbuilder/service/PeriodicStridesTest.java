@@ -0,0 +1,64 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.BitSet;
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.EnvelopeCoverageIndex;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+
+public class PeriodicStridesTest {
+
+    @Test
+    public void testRepeatedStridesMatchTheSearchOnTallWalls() {
+        assertRepeatedStridesMatchTheSearch(new StretcherBondService());
+        assertRepeatedStridesMatchTheSearch(new FlemishBondService());
+    }
+
+    // Searches every stride of a plain greedy pass, and checks each translated stride against it
+    private void assertRepeatedStridesMatchTheSearch(WallService wallService) {
+        WallGeometry geometry = new WallGeometry(2300, 10000, 800, 1300);
+        WallLayout layout = wallService.getWallLayout(geometry);
+        BrickDependencyGraph graph = new BrickDependencyGraph(layout, true);
+        EnvelopeCoverageIndex coverageIndex = new EnvelopeCoverageIndex(layout, geometry.envelopeWidthUnits(), geometry.envelopeHeightUnits());
+        int maxX = WallLayout.toUnits(wallService.wallWidth(geometry)) - geometry.envelopeWidthUnits();
+        EnvelopeCandidates candidates = new EnvelopeCandidates(geometry.envelopeWidthUnits(), geometry.envelopeHeightUnits(), 0, maxX);
+        PeriodicStrides periodicStrides = new PeriodicStrides(graph, new BitSet(), geometry.envelopeHeightUnits());
+        int strides = 0;
+        int repeatedStrides = 0;
+
+        while (graph.lowestPlaceableBrick().isPresent()) {
+            int y = layout.y(graph.lowestPlaceableBrick().getAsInt());
+            OptionalInt repeatedX = periodicStrides.repeatedX();
+            int buildEnvX = EnvelopeCandidateSearch.findOptimumBuildEnvX(candidates.xs(graph, y), y, graph, coverageIndex, 1);
+            if (repeatedX.isPresent()) {
+                assertThat(repeatedX.getAsInt()).isEqualTo(buildEnvX);
+                repeatedStrides++;
+            } else {
+                periodicStrides.remember(buildEnvX);
+            }
+            graph.placeAllWithin(coverageIndex.coverage(buildEnvX, y));
+            strides++;
+        }
+
+        // Only the courses at the foot and top of the wall are searched
+        assertThat(repeatedStrides).isGreaterThan(strides * 3 / 4);
+    }
+
+    @Test
+    public void testWildBondIsNotRepeated() {
+        WallGeometry geometry = new WallGeometry(2300, 2000, 800, 1300);
+        WallLayout layout = new WildBondService().getWallLayout(geometry);
+        BrickDependencyGraph graph = new BrickDependencyGraph(layout, true);
+        PeriodicStrides periodicStrides = new PeriodicStrides(graph, new BitSet(), geometry.envelopeHeightUnits());
+
+        assertThat(periodicStrides.repeatedX()).isEmpty();
+        periodicStrides.remember(0);
+        assertThat(periodicStrides.repeatedX()).isEmpty();
+    }
+}
@@ -0,0 +1,153 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.response.WallDto;
+
+public class PlanCacheTest {
+
+    private static final WallGeometry GEOMETRY = new WallGeometry(2300, 2000, 800, 1300);
+
+    private MutableClock clock = new MutableClock();
+    private PlanCache planCache = new PlanCache(2, Duration.ofMinutes(10), clock);
+
+    @Test
+    public void testRepeatedRequestIsServedFromCache() {
+        PlanKey key = new PlanKey(BondType.STRETCHER, GEOMETRY, null);
+        AtomicInteger computations = new AtomicInteger();
+
+        Plan first = planCache.get(key, () -> plan(computations));
+        Plan second = planCache.get(key, () -> plan(computations));
+
+        assertThat(second).isSameAs(first);
+        assertThat(computations).hasValue(1);
+        assertThat(planCache.stats()).isEqualTo(new PlanCache.PlanCacheStats(1, 1, 0, 1));
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneComputation() throws Exception {
+        PlanKey key = new PlanKey(BondType.FLEMISH, GEOMETRY, null);
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Plan>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> planCache.get(key, () -> {
+                    await(release);
+                    return plan(computations);
+                })));
+            }
+            release.countDown();
+            Plan first = results.getFirst().get(5, TimeUnit.SECONDS);
+            for (Future<Plan> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(computations).hasValue(1);
+    }
+
+    @Test
+    public void testOldestPlanIsEvictedWhenFull() {
+        AtomicInteger computations = new AtomicInteger();
+        PlanKey stretcher = new PlanKey(BondType.STRETCHER, GEOMETRY, null);
+        planCache.get(stretcher, () -> plan(computations));
+        clock.advance(Duration.ofSeconds(1));
+        planCache.get(new PlanKey(BondType.FLEMISH, GEOMETRY, null), () -> plan(computations));
+        clock.advance(Duration.ofSeconds(1));
+        planCache.get(new PlanKey(BondType.WILD, GEOMETRY, 1L), () -> plan(computations));
+
+        assertThat(planCache.stats().evictions()).isEqualTo(1);
+        assertThat(planCache.stats().size()).isEqualTo(2);
+
+        planCache.get(stretcher, () -> plan(computations));
+        assertThat(computations).hasValue(4);
+    }
+
+    @Test
+    public void testExpiredPlanIsRecomputed() {
+        PlanKey key = new PlanKey(BondType.STRETCHER, GEOMETRY, null);
+        AtomicInteger computations = new AtomicInteger();
+
+        planCache.get(key, () -> plan(computations));
+        assertThat(planCache.contains(key)).isTrue();
+        clock.advance(Duration.ofMinutes(11));
+        assertThat(planCache.contains(key)).isFalse();
+        planCache.get(key, () -> plan(computations));
+
+        assertThat(computations).hasValue(2);
+    }
+
+    @Test
+    public void testFailedPlanIsNotCached() {
+        PlanKey key = new PlanKey(BondType.STRETCHER, GEOMETRY, null);
+        AtomicInteger computations = new AtomicInteger();
+
+        assertThatThrownBy(() -> planCache.get(key, () -> {
+            throw new IllegalStateException("Unable to plan");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(planCache.contains(key)).isFalse();
+        planCache.get(key, () -> plan(computations));
+
+        assertThat(computations).hasValue(1);
+    }
+
+    private static Plan plan(AtomicInteger computations) {
+        computations.incrementAndGet();
+        return new Plan(new WallLayout.Builder().build(), new WallDto(List.of()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
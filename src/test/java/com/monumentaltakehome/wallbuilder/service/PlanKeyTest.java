@@ -0,0 +1,31 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+
+public class PlanKeyTest {
+
+    @Test
+    public void testIdDescribesTheKey() {
+        PlanKey wild = new PlanKey(BondType.WILD, new WallGeometry(2240, 2000, 800, 1300), -42L);
+        PlanKey stretcher = new PlanKey(BondType.STRETCHER, new WallGeometry(2300.5, 2000, 800, 1300), null);
+
+        assertThat(wild.id()).isEqualTo("wild_2240_2000_800_1300_-42");
+        assertThat(PlanKey.fromId(wild.id())).isEqualTo(wild);
+        assertThat(stretcher.id()).isEqualTo("stretcher_2300.5_2000_800_1300");
+        assertThat(PlanKey.fromId(stretcher.id())).isEqualTo(stretcher);
+    }
+
+    @Test
+    public void testInvalidIdsAreRejected() {
+        assertThatThrownBy(() -> PlanKey.fromId("wild_2240_2000_800_1300")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PlanKey.fromId("english_2240_2000_800_1300")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PlanKey.fromId("flemish_2240_2000")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PlanKey.fromId("flemish_long_2000_800_1300")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,60 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.response.StrideDto;
+
+public class PlanMetricsTest {
+
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void addRegistry() {
+        Metrics.globalRegistry.add(registry);
+    }
+
+    @AfterEach
+    public void removeRegistry() {
+        Metrics.globalRegistry.remove(registry);
+    }
+
+    @Test
+    public void testPlanningRecordsEveryStride() {
+        StretcherBondService wallService = new StretcherBondService();
+        WallGeometry geometry = wallService.defaultGeometry();
+        List<StrideDto> strides = new ArrayList<>();
+        wallService.planWall(wallService.getWallLayout(geometry), geometry, strides::add);
+
+        assertThat(registry.get("wallbuilder.plan.phase").tags("bond", "stretcher", "phase", "stride").timer().count()).isEqualTo(strides.size());
+        assertThat(registry.get("wallbuilder.plan.phase").tags("bond", "stretcher", "phase", "dto-mapping").timer().count()).isEqualTo(strides.size());
+        assertThat(registry.get("wallbuilder.plan.phase").tags("bond", "stretcher", "phase", "candidate-search").timer().count()).isEqualTo(strides.size());
+        assertThat(registry.get("wallbuilder.plan.strides").tags("bond", "stretcher").summary().totalAmount()).isEqualTo(strides.size());
+        assertThat(registry.get("wallbuilder.plan.stride.bricks").tags("bond", "stretcher").summary().totalAmount()).isEqualTo(352);
+        assertThat(registry.get("wallbuilder.plan.strides").tags("bond", "flemish").summary().count()).isZero();
+    }
+
+    @Test
+    public void testWildBondGenerationIsCounted() {
+        WildBondService wallService = new WildBondService();
+        wallService.getWallLayout(wallService.defaultGeometry(), new Random(1));
+
+        double rowsDrawn = registry.get("wallbuilder.wild.rows.drawn").tags("bond", "wild").counter().count();
+        double repeatedRows = registry.get("wallbuilder.wild.rows.repeated").tags("bond", "wild").counter().count();
+        assertThat(rowsDrawn - repeatedRows).isGreaterThanOrEqualTo(WallService.ROW_QUANTITY);
+        assertThat(registry.get("wallbuilder.wild.failures").tags("bond", "wild").counter().count()).isZero();
+        assertThat(registry.find("wallbuilder.wild.rows.drawn").tags("bond", "stretcher").counter()).isNull();
+        assertThat(registry.find("wallbuilder.wild.failures").tags("bond", "flemish").counter()).isNull();
+    }
+}
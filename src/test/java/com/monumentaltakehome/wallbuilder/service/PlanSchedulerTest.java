@@ -0,0 +1,145 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+
+public class PlanSchedulerTest {
+
+    private static final WallGeometry GEOMETRY = new WallGeometry(2300, 2000, 800, 1300);
+
+    private CountDownLatch release = new CountDownLatch(1);
+    private List<Long> planned = new CopyOnWriteArrayList<>();
+    private PlanScheduler planScheduler = new PlanScheduler(key -> {
+        await(release);
+        if (key.seed() == -1) {
+            throw new IllegalStateException("Unable to plan");
+        }
+        if (key.seed() == -2) {
+            throw new OutOfMemoryError("Java heap space");
+        }
+        planned.add(key.seed());
+    }, 1, 4, 16, Duration.ofHours(1), Clock.systemUTC());
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        planScheduler.shutdown();
+    }
+
+    @Test
+    public void testRunsEveryJobOfABatch() throws Exception {
+        release.countDown();
+        List<PlanJob> jobs = planScheduler.submit(keys(1, 2, 3));
+
+        for (PlanJob job : jobs) {
+            job.done().get(5, TimeUnit.SECONDS);
+            assertThat(job.status()).isEqualTo(PlanJob.Status.DONE);
+            assertThat(planScheduler.job(job.id())).contains(job);
+        }
+        assertThat(planned).containsExactly(1L, 2L, 3L);
+        // Jobs are counted just after their future completes
+        for (int i = 0; i < 500 && planScheduler.stats().completedJobs() < 3; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(planScheduler.stats().completedJobs()).isEqualTo(3);
+    }
+
+    @Test
+    public void testBatchesTakeTurns() throws Exception {
+        List<PlanJob> large = planScheduler.submit(keys(1, 2, 3));
+        awaitRunningJob();
+        List<PlanJob> small = planScheduler.submit(keys(10));
+        release.countDown();
+
+        small.getFirst().done().get(5, TimeUnit.SECONDS);
+        large.getLast().done().get(5, TimeUnit.SECONDS);
+        // The first job was already running when the small batch arrived
+        assertThat(planned).containsExactly(1L, 2L, 10L, 3L);
+    }
+
+    @Test
+    public void testFullQueueRejectsNewBatches() throws Exception {
+        planScheduler.submit(keys(0));
+        awaitRunningJob();
+        planScheduler.submit(keys(1, 2, 3, 4));
+
+        assertThatThrownBy(() -> planScheduler.submit(keys(5))).isInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> planScheduler.submit(keys(1, 2, 3, 4, 5))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testFailedJobKeepsItsError() {
+        release.countDown();
+        PlanJob job = planScheduler.submit(keys(-1)).getFirst();
+
+        assertThatThrownBy(() -> job.done().get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(job.status()).isEqualTo(PlanJob.Status.FAILED);
+        assertThat(job.error()).isEqualTo("Unable to plan");
+    }
+
+    @Test
+    public void testErrorFailsTheJobAndLeavesTheSchedulerRunning() throws Exception {
+        release.countDown();
+        PlanJob job = planScheduler.submit(keys(-2)).getFirst();
+
+        assertThatThrownBy(() -> job.done().get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(OutOfMemoryError.class);
+        assertThat(job.status()).isEqualTo(PlanJob.Status.FAILED);
+        assertThat(job.error()).isEqualTo("Java heap space");
+        planScheduler.submit(keys(1)).getFirst().done().get(5, TimeUnit.SECONDS);
+        assertThat(planned).containsExactly(1L);
+    }
+
+    @Test
+    public void testOldestFinishedJobsGoPastTheMaximum() throws Exception {
+        PlanScheduler smallScheduler = new PlanScheduler(key -> {}, 1, 4, 2, Duration.ofHours(1), Clock.systemUTC());
+        try {
+            List<PlanJob> jobs = smallScheduler.submit(keys(1, 2, 3));
+            jobs.getLast().done().get(5, TimeUnit.SECONDS);
+            // The job is retained just after its future completes
+            for (int i = 0; i < 500 && smallScheduler.job(jobs.getFirst().id()).isPresent(); i++) {
+                Thread.sleep(10);
+            }
+
+            assertThat(smallScheduler.job(jobs.getFirst().id())).isEmpty();
+            assertThat(smallScheduler.job(jobs.get(1).id())).contains(jobs.get(1));
+            assertThat(smallScheduler.job(jobs.getLast().id())).contains(jobs.getLast());
+        } finally {
+            smallScheduler.shutdown();
+        }
+    }
+
+    private void awaitRunningJob() throws InterruptedException {
+        for (int i = 0; i < 500 && planScheduler.stats().runningJobs() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(planScheduler.stats().runningJobs()).isEqualTo(1);
+    }
+
+    private static List<PlanKey> keys(long... seeds) {
+        return LongStream.of(seeds).mapToObj(seed -> new PlanKey(BondType.WILD, GEOMETRY, seed)).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.monumentaltakehome.wallbuilder.domain.BondType;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.request.WallRequest;
+import com.monumentaltakehome.wallbuilder.response.WallPlanCodec;
+
+public class PlanServiceTest {
+
+    private static final WallRequest REQUEST = new WallRequest(2300.0, 2000.0, 800.0, 1300.0, null);
+
+    @TempDir
+    private Path directory;
+
+    private PlanStore planStore;
+    private PlanService planService;
+
+    @BeforeEach
+    public void setUp() {
+        planStore = new PlanStore(directory, PlanStore.SEGMENT_SIZE);
+        planService = new PlanService(new PlanCache(), planStore, null);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        planStore.close();
+    }
+
+    @Test
+    public void testRandomSeededPlanIsOnlyStoredOnceItsIdIsUsedAgain() {
+        PlanKey key = planService.planKey(BondType.WILD, REQUEST);
+        planService.getPlan(key);
+
+        assertThat(planStore.get(key.id())).isEmpty();
+
+        assertThat(planService.issuedPlanKey(key.id())).isEqualTo(key);
+        assertThat(planStore.get(key.id())).isPresent();
+    }
+
+    @Test
+    public void testRandomSeededPlanIdIsIssuedBeforeItIsPlanned() {
+        PlanKey key = planService.planKey(BondType.WILD, REQUEST);
+
+        assertThat(planService.issuedPlanKey(key.id())).isEqualTo(key);
+        assertThat(planStore.get(key.id())).isPresent();
+    }
+
+    @Test
+    public void testPlanIdsGivenASeedAreStoredWhenPlanned() {
+        PlanKey key = planService.planKey(BondType.WILD, new WallRequest(2300.0, 2000.0, 800.0, 1300.0, 42L));
+        planService.getPlan(key);
+
+        assertThat(planStore.get(key.id())).isPresent();
+        assertThat(planService.issuedPlanKey(key.id())).isEqualTo(key);
+    }
+
+    @Test
+    public void testBatchPlansAreStoredWhateverTheirSeed() {
+        PlanKey key = planService.planKey(BondType.WILD, REQUEST);
+        planService.storePlan(key);
+        planStore.flush();
+
+        assertThat(planStore.get(key.id())).isPresent();
+        assertThat(planService.getPlan(key)).isEqualTo(WallPlanCodec.decode(planStore.get(key.id()).orElseThrow()));
+    }
+
+    @Test
+    public void testSearchedPlanIdsAreNotIssued() {
+        PlanKey key = planService.planKey(BondType.WILD, REQUEST);
+        planService.searchPlan(key, Duration.ofMillis(10));
+
+        assertThatThrownBy(() -> planService.issuedPlanKey(key.id())).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    public void testPlanIdsNeverIssuedAreNotFound() {
+        PlanKey key = new PlanKey(BondType.WILD, new WallGeometry(2300, 2000, 800, 1300), 7L);
+
+        assertThatThrownBy(() -> planService.issuedPlanKey(key.id())).isInstanceOf(NoSuchElementException.class);
+        assertThat(planStore.get(key.id())).isEmpty();
+    }
+
+    @Test
+    public void testMalformedPlanIdsAreRejected() {
+        assertThatThrownBy(() -> planService.issuedPlanKey("not-a-plan")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,158 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.response.WallDto;
+import com.monumentaltakehome.wallbuilder.response.WallPlanCodec;
+
+public class PlanStoreTest {
+
+    private static final WallGeometry GEOMETRY = new WallGeometry(2300, 2000, 800, 1300);
+    private static final byte[] PLAN = WallPlanCodec.encode(new StretcherBondService().generateWall(GEOMETRY));
+    // Records of PLAN under ids of six characters, after the segment's magic number
+    private static final int RECORD_SIZE = 10 + 6 + PLAN.length;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testStoredPlansAreServedAfterRestart() {
+        PlanStore planStore = new PlanStore(directory, PlanStore.SEGMENT_SIZE);
+        planStore.put("plan-1", PLAN);
+        planStore.put("plan-1", new byte[] {1, 2, 3});
+        planStore.close();
+
+        PlanStore restarted = new PlanStore(directory, PlanStore.SEGMENT_SIZE);
+
+        assertThat(restarted.get("plan-1")).contains(ByteBuffer.wrap(PLAN));
+        assertThat(WallPlanCodec.decode(restarted.get("plan-1").orElseThrow())).isEqualTo(WallPlanCodec.decode(PLAN));
+        assertThat(restarted.get("plan-2")).isEmpty();
+        assertThat(restarted.stats().plans()).isEqualTo(1);
+    }
+
+    @Test
+    public void testTornRecordIsDroppedOnRecovery() throws IOException {
+        PlanStore planStore = new PlanStore(directory, PlanStore.SEGMENT_SIZE);
+        planStore.put("plan-1", PLAN);
+        planStore.put("plan-2", PLAN);
+        planStore.close();
+        corrupt(segments().get(0), 4 + RECORD_SIZE + 20);
+
+        PlanStore recovered = new PlanStore(directory, PlanStore.SEGMENT_SIZE);
+        recovered.put("plan-3", PLAN);
+        recovered.close();
+        PlanStore restarted = new PlanStore(directory, PlanStore.SEGMENT_SIZE);
+
+        assertThat(restarted.get("plan-1")).contains(ByteBuffer.wrap(PLAN));
+        assertThat(restarted.get("plan-2")).isEmpty();
+        assertThat(restarted.get("plan-3")).contains(ByteBuffer.wrap(PLAN));
+    }
+
+    @Test
+    public void testCompactionCopiesLivePlansOutOfMostlyGarbageSegments() throws IOException {
+        // Three records fit in a segment, so the fourth starts a second one
+        int segmentSize = 4 + 3 * RECORD_SIZE;
+        PlanStore planStore = new PlanStore(directory, segmentSize);
+        for (int i = 1; i <= 4; i++) {
+            planStore.put("plan-" + i, PLAN);
+        }
+        planStore.close();
+        assertThat(segments()).hasSize(2);
+        corrupt(segments().get(0), 4 + RECORD_SIZE + 20);
+
+        PlanStore compacted = new PlanStore(directory, segmentSize);
+        compacted.close();
+        PlanStore restarted = new PlanStore(directory, segmentSize);
+
+        assertThat(segments()).hasSize(1);
+        assertThat(restarted.get("plan-1")).contains(ByteBuffer.wrap(PLAN));
+        assertThat(restarted.get("plan-2")).isEmpty();
+        assertThat(restarted.get("plan-3")).isEmpty();
+        assertThat(restarted.get("plan-4")).contains(ByteBuffer.wrap(PLAN));
+        assertThat(restarted.stats().garbage()).isZero();
+    }
+
+    @Test
+    public void testUnusedEndOfAFullSegmentIsNotGarbage() {
+        // Three records and a little more fit in a segment, so the fourth starts a second one
+        PlanStore planStore = new PlanStore(directory, 4 + 3 * RECORD_SIZE + 100);
+        for (int i = 1; i <= 4; i++) {
+            planStore.put("plan-" + i, PLAN);
+        }
+        planStore.flush();
+
+        assertThat(planStore.stats().segments()).isEqualTo(2);
+        assertThat(planStore.stats().garbage()).isZero();
+    }
+
+    @Test
+    public void testOldestSegmentsAreDroppedPastTheMaximumSize() throws IOException {
+        int segmentSize = 4 + 3 * RECORD_SIZE;
+        PlanStore planStore = new PlanStore(directory, segmentSize, 2 * segmentSize);
+        for (int i = 1; i <= 7; i++) {
+            planStore.put("plan-" + i, PLAN);
+        }
+        planStore.close();
+
+        PlanStore restarted = new PlanStore(directory, segmentSize, 2 * segmentSize);
+
+        assertThat(planStore.stats().droppedPlans()).isEqualTo(3);
+        assertThat(segments()).hasSize(2);
+        for (int i = 1; i <= 7; i++) {
+            assertThat(restarted.get("plan-" + i).isPresent()).isEqualTo(i > 3);
+        }
+    }
+
+    @Test
+    public void testPlanLargerThanASegmentGetsItsOwnSegment() {
+        PlanStore planStore = new PlanStore(directory, 64);
+        planStore.put("plan-1", PLAN);
+        planStore.close();
+
+        assertThat(new PlanStore(directory, 64).get("plan-1")).contains(ByteBuffer.wrap(PLAN));
+    }
+
+    @Test
+    public void testStoredWallRebuildsTheLayoutItWasPlannedFrom() {
+        WildBondService wallService = new WildBondService();
+        WallLayout layout = wallService.getWallLayout(GEOMETRY, new Random(7));
+        WallDto wall = WallPlanCodec.decode(WallPlanCodec.encode(wallService.planWall(layout, GEOMETRY)));
+
+        WallLayout rebuilt = PlanService.layoutOf(wall);
+
+        assertThat(rebuilt.size()).isEqualTo(layout.size());
+        for (int id = 0; id < layout.size(); id++) {
+            assertThat(List.of(rebuilt.x(id), rebuilt.y(id), rebuilt.width(id), rebuilt.height(id), rebuilt.rowNumber(id), rebuilt.columnNumber(id)))
+                .isEqualTo(List.of(layout.x(id), layout.y(id), layout.width(id), layout.height(id), layout.rowNumber(id), layout.columnNumber(id)));
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static void corrupt(Path segment, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer original = ByteBuffer.allocate(1);
+            channel.read(original, position);
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) ~original.get(0)}), position);
+        }
+    }
+}
@@ -2,8 +2,13 @@ package com.monumentaltakehome.wallbuilder.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.response.StrideDto;
 import com.monumentaltakehome.wallbuilder.response.WallDto;
 
 public class StretcherBondServiceTest {
@@ -17,4 +22,14 @@ public class StretcherBondServiceTest {
         assertThat(wall.bricks()).isNotEmpty();
         assertThat(wall.bricks().size()).isEqualTo(352);
     }
+
+    @Test
+    public void testPlanWallStreamsStridesInOrder() {
+        WallGeometry geometry = wallService.defaultGeometry();
+        List<StrideDto> strides = new ArrayList<>();
+        wallService.planWall(wallService.getWallLayout(geometry), geometry, strides::add);
+
+        assertThat(strides).extracting(StrideDto::strideIndex).isSorted().doesNotHaveDuplicates();
+        assertThat(strides.stream().flatMap(stride -> stride.bricks().stream()).toList()).isEqualTo(wallService.generateWall().bricks());
+    }
 }
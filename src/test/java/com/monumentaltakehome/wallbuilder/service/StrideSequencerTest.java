@@ -0,0 +1,88 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.service.WallService.Stride;
+
+public class StrideSequencerTest {
+
+    private static final WallGeometry GEOMETRY = new WallGeometry(6000, 2000, 800, 1300);
+
+    @Test
+    public void testSequencedStridesArePlaceableAndShorter() {
+        for (WallService wallService : List.of(new StretcherBondService(), new FlemishBondService())) {
+            for (MotionCostModel motionCost : List.of(MotionCostModel.STRAIGHT_LINE, MotionCostModel.GANTRY)) {
+                WallLayout layout = wallService.getWallLayout(GEOMETRY);
+                StrideSequencer sequencer = new StrideSequencer(layout, true, motionCost, PlanMetrics.of(wallService.bondType()));
+                BrickDependencyGraph graph = new BrickDependencyGraph(layout, true);
+                int plannedTravel = 0;
+                int sequencedTravel = 0;
+
+                for (Stride stride : strides(wallService, layout)) {
+                    Stride sequenced = sequencer.sequence(stride);
+                    assertThat(sequenced.strideIndex()).isEqualTo(stride.strideIndex());
+                    assertThat(sequenced.brickIds()).containsExactlyInAnyOrder(stride.brickIds());
+                    assertThat(sequencer.travel(sequenced.brickIds())).isLessThanOrEqualTo(sequencer.travel(stride.brickIds()));
+                    // Throws if a brick is placed before its foundations or left neighbour
+                    for (int id : sequenced.brickIds()) {
+                        graph.place(id);
+                    }
+                    plannedTravel += sequencer.travel(stride.brickIds());
+                    sequencedTravel += sequencer.travel(sequenced.brickIds());
+                }
+
+                assertThat(sequencedTravel).isLessThan(plannedTravel * 19 / 20);
+            }
+        }
+    }
+
+    @Test
+    public void testPlannedOrderIsKeptWhenItIsShortest() {
+        StretcherBondService wallService = new StretcherBondService();
+        WallLayout layout = wallService.getWallLayout(GEOMETRY);
+        // Only climbing costs, and the planner climbs each course once
+        MotionCostModel climbing = (l, fromId, toId) -> Math.abs(l.y(toId) - l.y(fromId));
+        StrideSequencer sequencer = new StrideSequencer(layout, true, climbing, PlanMetrics.of(wallService.bondType()));
+
+        for (Stride stride : strides(wallService, layout)) {
+            assertThat(sequencer.sequence(stride)).isSameAs(stride);
+        }
+    }
+
+    @Test
+    public void testLargestStrideIsSequencedQuicklyAndLargerOnesAreKept() {
+        StretcherBondService wallService = new StretcherBondService();
+        WallGeometry geometry = new WallGeometry(10000, 4000, 4000, 4000);
+        WallLayout layout = wallService.getWallLayout(geometry);
+        StrideSequencer sequencer = new StrideSequencer(layout, true, MotionCostModel.STRAIGHT_LINE, PlanMetrics.of(wallService.bondType()));
+        int[] ids = new int[layout.size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = id;
+        }
+        Stride largest = new Stride(0, Arrays.copyOf(ids, StrideSequencer.MAXIMUM_BRICKS));
+        Stride tooLarge = new Stride(1, Arrays.copyOf(ids, StrideSequencer.MAXIMUM_BRICKS + 1));
+
+        long start = System.nanoTime();
+        Stride sequenced = sequencer.sequence(largest);
+
+        // Tens of milliseconds, even on a slow build machine
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(1000);
+        assertThat(sequenced.brickIds()).containsExactlyInAnyOrder(largest.brickIds());
+        assertThat(sequencer.sequence(tooLarge)).isSameAs(tooLarge);
+    }
+
+    private static List<Stride> strides(WallService wallService, WallLayout layout) {
+        List<Stride> strides = new ArrayList<>();
+        wallService.createPlanner(layout, GEOMETRY).plan(strides::add);
+        return strides;
+    }
+}
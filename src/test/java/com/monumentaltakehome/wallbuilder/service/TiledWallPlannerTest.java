@@ -0,0 +1,92 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+
+public class TiledWallPlannerTest {
+
+    private FlemishBondService wallService = new FlemishBondService();
+
+    @Test
+    public void testLongWallPlacesEveryBrickAfterItsDependencies() {
+        WallGeometry geometry = new WallGeometry(20000, 2000, 800, 1300);
+        TiledWallPlanner planner = wallService.createPlanner(geometry);
+        BrickDependencyGraph graph = new BrickDependencyGraph(planner.layout(), true);
+        int[] strides = {0};
+
+        planner.plan(stride -> {
+            assertThat(stride.strideIndex()).isEqualTo(strides[0]++);
+            for (int id : stride.brickIds()) {
+                // Throws if a brick is placed twice or before the bricks it depends on
+                graph.place(id);
+            }
+        });
+
+        assertThat(graph.lowestPlaceableBrick()).isEmpty();
+        assertThat(graph.checkpoint()).isEqualTo(graph.size());
+    }
+
+    @Test
+    public void testReplanPlacesOnlyTheRemainingBricks() {
+        WallGeometry geometry = new WallGeometry(20000, 2000, 800, 1300);
+        List<int[]> strides = new ArrayList<>();
+        wallService.createPlanner(geometry).plan(stride -> strides.add(stride.brickIds()));
+        BrickDependencyGraph graph = new BrickDependencyGraph(wallService.createPlanner(geometry).layout(), true);
+        BitSet placed = new BitSet();
+        for (int[] stride : strides.subList(0, strides.size() / 2)) {
+            for (int id : stride) {
+                graph.place(id);
+                placed.set(id);
+            }
+        }
+
+        TiledWallPlanner planner = wallService.createPlanner(geometry);
+        planner.markPlaced(placed);
+        planner.plan(stride -> {
+            for (int id : stride.brickIds()) {
+                graph.place(id);
+            }
+        });
+
+        assertThat(graph.checkpoint()).isEqualTo(graph.size());
+    }
+
+    @Test
+    public void testReplanRejectsBricksPlacedOnUnplacedBricks() {
+        TiledWallPlanner planner = wallService.createPlanner(new WallGeometry(2300, 2000, 800, 1300));
+        BitSet placed = new BitSet();
+        placed.set(planner.layout().size() - 1);
+
+        assertThatThrownBy(() -> planner.markPlaced(placed)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testSearchedPlanSavesStridesOverGreedyPlan() {
+        WallGeometry geometry = new WallGeometry(2300, 2000, 800, 1300);
+        int[] greedyStrides = {0};
+        wallService.createPlanner(geometry).plan(stride -> greedyStrides[0]++);
+        TiledWallPlanner planner = wallService.createPlanner(geometry);
+        BrickDependencyGraph graph = new BrickDependencyGraph(planner.layout(), true);
+        int[] strides = {0};
+
+        planner.plan(Duration.ofSeconds(5), stride -> {
+            strides[0]++;
+            for (int id : stride.brickIds()) {
+                graph.place(id);
+            }
+        });
+
+        assertThat(graph.checkpoint()).isEqualTo(graph.size());
+        assertThat(planner.stridesSaved()).isPositive().isEqualTo(greedyStrides[0] - strides[0]);
+    }
+}
@@ -0,0 +1,111 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BuildTimings;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.service.WildBondPortfolio.Portfolio;
+import com.monumentaltakehome.wallbuilder.service.WildBondPortfolio.PortfolioCandidate;
+
+public class WildBondPortfolioTest {
+
+    private static final WallGeometry GEOMETRY = new WallGeometry(6000, 2000, 800, 1300);
+    private static final Duration NO_DEADLINE = Duration.ofMinutes(1);
+
+    private final WildBondService wildBondService = new WildBondService();
+    private final WildBondPortfolio portfolio = new WildBondPortfolio(wildBondService, 4);
+
+    @AfterEach
+    public void shutdown() {
+        portfolio.shutdown();
+    }
+
+    @Test
+    public void testBestCandidateBuildsFastestAndCanBePlannedAgainFromItsSeed() {
+        Portfolio result = portfolio.plan(GEOMETRY, 42, 8, 4, NO_DEADLINE, BuildTimings.DEFAULT);
+
+        assertThat(result.candidates()).hasSize(8);
+        assertThat(result.candidates().get(0).seed()).isEqualTo(result.candidates().stream()
+            .min(Comparator.comparingDouble(PortfolioCandidate::eta)).orElseThrow().seed());
+        assertThat(result.candidates()).extracting(PortfolioCandidate::seed).contains(42L).doesNotHaveDuplicates();
+        assertThat(result.best().wall()).isEqualTo(wildBondService.generateWall(GEOMETRY, result.candidates().get(0).seed()));
+    }
+
+    @Test
+    public void testSameSeedPicksTheSameWallWhateverTheParallelism() {
+        Portfolio sequential = portfolio.plan(GEOMETRY, 7, 6, 1, NO_DEADLINE, BuildTimings.DEFAULT);
+        Portfolio parallel = portfolio.plan(GEOMETRY, 7, 6, 4, NO_DEADLINE, BuildTimings.DEFAULT);
+
+        assertThat(parallel.candidates()).isEqualTo(sequential.candidates());
+        assertThat(parallel.best().wall()).isEqualTo(sequential.best().wall());
+    }
+
+    @Test
+    public void testFirstCandidateIsPlannedEvenPastTheDeadline() {
+        Portfolio result = portfolio.plan(GEOMETRY, 42, 8, 4, Duration.ofNanos(1), BuildTimings.DEFAULT);
+
+        assertThat(result.candidates()).singleElement().extracting(PortfolioCandidate::seed).isEqualTo(42L);
+    }
+
+    @Test
+    public void testFirstCandidateIsPlannedOnTheCallingThreadWhenThePoolIsBusy() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Candidates planned on the pool wait for the release, so a single worker stays busy with the first request
+        WildBondService blockingService = new WildBondService() {
+            @Override
+            public WallLayout getWallLayout(WallGeometry geometry, Random random) {
+                if (Thread.currentThread().getName().startsWith("portfolio-worker-")) {
+                    blocked.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getWallLayout(geometry, random);
+            }
+        };
+        WildBondPortfolio busyPortfolio = new WildBondPortfolio(blockingService, 1);
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<Portfolio> busy = caller.submit(() -> busyPortfolio.plan(GEOMETRY, 1, 4, 1, Duration.ofMillis(50), BuildTimings.DEFAULT));
+            assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+            long start = System.nanoTime();
+            Portfolio result = busyPortfolio.plan(GEOMETRY, 42, 4, 1, Duration.ofMillis(50), BuildTimings.DEFAULT);
+
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+            assertThat(result.candidates()).singleElement().extracting(PortfolioCandidate::seed).isEqualTo(42L);
+            release.countDown();
+            assertThat(busy.get(10, TimeUnit.SECONDS).candidates()).singleElement().extracting(PortfolioCandidate::seed).isEqualTo(1L);
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+            busyPortfolio.shutdown();
+        }
+    }
+
+    @Test
+    public void testJointOverlapOfStretcherBondIsHalfABrick() {
+        WallLayout layout = new StretcherBondService().getWallLayout(GEOMETRY);
+
+        // Every joint stands over the middle of a brick below, offset by half a brick and half a joint
+        assertThat(WildBondPortfolio.jointOverlap(layout)).isEqualTo((WallService.FULL_BRICK_WIDTH + WallService.HEAD_JOINT) / 2);
+        assertThat(WildBondPortfolio.jointOverlap(wildBondService.getWallLayout(GEOMETRY, new Random(42))))
+            .isGreaterThan(0).isLessThan(WallService.FULL_BRICK_WIDTH);
+    }
+}
@@ -2,9 +2,12 @@ package com.monumentaltakehome.wallbuilder.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
 import com.monumentaltakehome.wallbuilder.response.WallDto;
 
 //@SpringBootTest
@@ -18,4 +21,37 @@ public class WildBondServiceTest {
 
         assertThat(wall.bricks()).isNotEmpty();
     }
+
+    @Test
+    public void testGenerateWallWithGeometry() {
+        WallDto wall = wallService.generateWall(new WallGeometry(1800, 1000, 800, 1300));
+
+        assertThat(wall.bricks()).isNotEmpty();
+        assertThat(wall.bricks()).allMatch(brick -> brick.x() + brick.width() <= 1800 && brick.y() <= 1000);
+    }
+
+    @Test
+    public void testGenerateWallWithSeedIsReproducible() {
+        WallGeometry geometry = wallService.defaultGeometry();
+
+        assertThat(wallService.generateWall(geometry, 42)).isEqualTo(wallService.generateWall(geometry, 42));
+    }
+
+    @Test
+    public void testGenerateTallWallBacktracksInsteadOfFailing() {
+        WallGeometry geometry = new WallGeometry(2240, 6000, 800, 1300);
+
+        for (long seed = 0; seed < 20; seed++) {
+            assertThat(wallService.getWallLayout(geometry, new Random(seed)).size()).isPositive();
+        }
+    }
+
+    @Test
+    public void testExhaustiveSearchGeneratesWallWithoutBackjumping() {
+        // No backtracks are allowed before the search falls back to the exhaustive one
+        for (long seed = 0; seed < 5; seed++) {
+            assertThat(wallService.generateWildBond(WallService.ROW_QUANTITY, 9, new Random(seed), 0))
+                .hasSize(WallService.ROW_QUANTITY);
+        }
+    }
 }
@@ -0,0 +1,121 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.service.WildBondService.BrickType;
+
+public class WildRowSamplerTest {
+
+    private static final int BRICKS_PER_ROW = 9;
+
+    private WildRowSampler sampler = new WildRowSampler(BRICKS_PER_ROW, 2, BRICKS_PER_ROW - 2, 4, 3, 5);
+
+    @Test
+    public void testCountsAndDrawsOnlyValidRows() {
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            long[] forbidden = {random.nextLong() & random.nextLong() & ~1L & ~(1L << 2 * BRICKS_PER_ROW)};
+            sampler.prepare(forbidden, 4);
+            for (int extra = 0; extra <= 4; extra += 2) {
+                Set<Long> validRows = enumerateRows(forbidden[0], extra);
+
+                assertThat(sampler.rowCount(extra)).isEqualTo(validRows.size());
+                BrickType[] brickArray = new BrickType[2 * BRICKS_PER_ROW];
+                long[] jointRow = new long[1];
+                for (int draw = 0; draw < 20 && !validRows.isEmpty(); draw++) {
+                    int brickCount = sampler.sample(extra, random, brickArray, jointRow);
+
+                    assertThat(validRows).contains(jointRow[0]);
+                    assertThat(brickCount).isEqualTo(Long.bitCount(jointRow[0]) - 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDrawsEveryValidRow() {
+        long[] forbidden = {0};
+        Set<Long> validRows = enumerateRows(forbidden[0], 2);
+        sampler.prepare(forbidden, 4);
+
+        Random random = new Random(5);
+        BrickType[] brickArray = new BrickType[2 * BRICKS_PER_ROW];
+        long[] jointRow = new long[1];
+        Set<Long> drawn = new HashSet<>();
+        for (int draw = 0; draw < 100 * validRows.size(); draw++) {
+            sampler.sample(2, random, brickArray, jointRow);
+            drawn.add(jointRow[0]);
+        }
+
+        assertThat(drawn).isEqualTo(validRows);
+    }
+
+    @Test
+    public void testEnumeratesEveryValidRowOnce() {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            long[] forbidden = {random.nextLong() & random.nextLong() & ~1L & ~(1L << 2 * BRICKS_PER_ROW)};
+            sampler.prepare(forbidden, 4);
+            for (int extra = 0; extra <= 4; extra += 2) {
+                BrickType[] brickArray = new BrickType[2 * BRICKS_PER_ROW];
+                long[] jointRow = new long[1];
+                List<Long> enumerated = new ArrayList<>();
+                for (int brickCount = sampler.firstRow(extra, brickArray, jointRow); brickCount > 0;
+                        brickCount = sampler.nextRow(extra, brickArray, brickCount, jointRow)) {
+                    assertThat(brickCount).isEqualTo(Long.bitCount(jointRow[0]) - 1);
+                    enumerated.add(jointRow[0]);
+                }
+
+                assertThat(enumerated).doesNotHaveDuplicates();
+                assertThat(new HashSet<>(enumerated)).isEqualTo(enumerateRows(forbidden[0], extra));
+            }
+        }
+    }
+
+    @Test
+    public void testCountsLongRowsWithoutOverflow() {
+        WildRowSampler longRows = new WildRowSampler(600, 2, 598, 4, 3, 5);
+        long[] forbidden = new long[19];
+
+        longRows.prepare(forbidden, 4);
+
+        assertThat(longRows.rowCount(0)).isPositive().isFinite();
+        assertThat(longRows.rowCount(4)).isPositive().isFinite();
+    }
+
+    // Joint rows of every brick arrangement passing the adjacent brick rules with the given number of half bricks over
+    // the fewest, at least two
+    private static Set<Long> enumerateRows(long forbidden, int extraHalfBricks) {
+        List<long[]> rows = new ArrayList<>();
+        enumerate(0, 0, 0, 0, 1L, forbidden, rows);
+        int fewest = rows.stream().mapToInt(row -> (int) row[1]).min().orElse(Integer.MAX_VALUE);
+        Set<Long> fewestRows = new HashSet<>();
+        if (fewest + extraHalfBricks <= BRICKS_PER_ROW - 2) {
+            rows.stream().filter(row -> row[1] == fewest + extraHalfBricks).forEach(row -> fewestRows.add(row[0]));
+        }
+        return fewestRows;
+    }
+
+    private static void enumerate(int position, int halfBricks, int halfRun, int fullRun, long jointRow, long forbidden, List<long[]> rows) {
+        if (position == 2 * BRICKS_PER_ROW) {
+            if (halfBricks >= 2) {
+                rows.add(new long[] {jointRow, halfBricks});
+            }
+            return;
+        }
+        if (halfRun < 3 && (forbidden & 1L << position + 1) == 0) {
+            enumerate(position + 1, halfBricks + 1, halfRun + 1, 0, jointRow | 1L << position + 1, forbidden, rows);
+        }
+        if (fullRun < 5 && position + 2 <= 2 * BRICKS_PER_ROW && (forbidden & 1L << position + 2) == 0) {
+            enumerate(position + 2, halfBricks, 0, fullRun + 1, jointRow | 1L << position + 2, forbidden, rows);
+        }
+    }
+}
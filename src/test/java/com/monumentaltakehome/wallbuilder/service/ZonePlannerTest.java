@@ -0,0 +1,98 @@
+package com.monumentaltakehome.wallbuilder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.monumentaltakehome.wallbuilder.domain.BrickDependencyGraph;
+import com.monumentaltakehome.wallbuilder.domain.WallGeometry;
+import com.monumentaltakehome.wallbuilder.domain.WallLayout;
+import com.monumentaltakehome.wallbuilder.service.ZonePlanner.RobotStride;
+
+public class ZonePlannerTest {
+
+    private static final WallGeometry LONG_WALL = new WallGeometry(20000, 2000, 800, 1300);
+    private static final int CLEARANCE = WallLayout.toUnits(500);
+
+    private StretcherBondService wallService = new StretcherBondService();
+
+    @Test
+    public void testConcurrentStridesOnlyDependOnEarlierSteps() {
+        ZonePlanner planner = createPlanner(3);
+        WallLayout layout = wallService.getWallLayout(LONG_WALL);
+        BrickDependencyGraph graph = new BrickDependencyGraph(layout, true);
+        List<List<RobotStride>> steps = new ArrayList<>();
+        planner.plan(robotStride -> {
+            if (steps.size() == robotStride.step()) {
+                steps.add(new ArrayList<>());
+            }
+            steps.get(robotStride.step()).add(robotStride);
+        });
+
+        for (List<RobotStride> step : steps) {
+            for (RobotStride robotStride : step) {
+                // Throws if a brick depends on a brick placed by another stride of the same step
+                BrickDependencyGraph stepStart = graph.copy();
+                for (int id : robotStride.stride().brickIds()) {
+                    stepStart.place(id);
+                    assertThat(layout.y(id)).isGreaterThanOrEqualTo(planner.zoneFloor(robotStride.robot()));
+                    if (robotStride.robot() + 1 < planner.robots()) {
+                        assertThat(layout.y(id)).isLessThan(planner.zoneFloor(robotStride.robot() + 1));
+                    }
+                }
+            }
+            for (int i = 0; i < step.size(); i++) {
+                for (int j = i + 1; j < step.size(); j++) {
+                    assertThat(gapBetween(layout, step.get(i), step.get(j))).isGreaterThanOrEqualTo(CLEARANCE);
+                }
+            }
+            for (RobotStride robotStride : step) {
+                for (int id : robotStride.stride().brickIds()) {
+                    graph.place(id);
+                }
+            }
+        }
+        assertThat(graph.checkpoint()).isEqualTo(graph.size());
+    }
+
+    @Test
+    public void testRobotsBuildLongWallFasterTogether() {
+        int oneRobotSteps = steps(createPlanner(1));
+        int threeRobotSteps = steps(createPlanner(3));
+
+        assertThat(threeRobotSteps).isLessThan(oneRobotSteps * 3 / 5);
+    }
+
+    @Test
+    public void testWallTooLowForTheRobotsIsRejected() {
+        WallGeometry geometry = new WallGeometry(20000, 150, 800, 1300);
+        WallLayout layout = wallService.getWallLayout(geometry);
+
+        assertThatThrownBy(() -> new ZonePlanner(layout, WallLayout.toUnits(wallService.wallWidth(geometry)), geometry.envelopeWidthUnits(),
+            geometry.envelopeHeightUnits(), 3, CLEARANCE, true, PlanMetrics.of(wallService.bondType())))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ZonePlanner createPlanner(int robots) {
+        return new ZonePlanner(wallService.getWallLayout(LONG_WALL), WallLayout.toUnits(wallService.wallWidth(LONG_WALL)),
+            LONG_WALL.envelopeWidthUnits(), LONG_WALL.envelopeHeightUnits(), robots, CLEARANCE, true, PlanMetrics.of(wallService.bondType()));
+    }
+
+    private static int steps(ZonePlanner planner) {
+        int[] steps = {0};
+        planner.plan(robotStride -> steps[0] = robotStride.step() + 1);
+        return steps[0];
+    }
+
+    // Every brick's left edge is inside its stride's envelope, and envelopes of a wall this low always overlap in height
+    private static int gapBetween(WallLayout layout, RobotStride a, RobotStride b) {
+        int[] aXs = Arrays.stream(a.stride().brickIds()).map(layout::x).sorted().toArray();
+        int[] bXs = Arrays.stream(b.stride().brickIds()).map(layout::x).sorted().toArray();
+        return Math.max(bXs[0] - aXs[aXs.length - 1], aXs[0] - bXs[bXs.length - 1]);
+    }
+}